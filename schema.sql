@@ -73,14 +73,32 @@ CREATE TABLE IF NOT EXISTS verification_tokens (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='驗證 Token 資料表';
 
 -- ============================================
--- 6. 建立或修改 expenses 資料表
+-- 6. 建立 expense_categories 與 expenses 資料表
 -- ============================================
+-- 每位使用者的分類字典：支出只存 category_id，分類名稱集中存放一次
+-- name 刻意沿用 utf8mb4_unicode_ci（與舊版 expenses.category 相同）：大小寫或重音不同的名稱（Food / food）
+-- 視為同一個分類，篩選、預算與統計都和舊版一樣不分大小寫；名稱以第一次建立時的寫法為準
+CREATE TABLE IF NOT EXISTS expense_categories (
+    id INT AUTO_INCREMENT PRIMARY KEY COMMENT '主鍵 ID',
+    user_id BIGINT NOT NULL COMMENT '使用者 ID',
+    name VARCHAR(50) NOT NULL COMMENT '分類名稱',
+    first_used_date DATE NULL COMMENT '最早的支出日期（只會放寬）',
+    last_used_date DATE NULL COMMENT '最晚的支出日期（只會放寬）',
+
+    -- 外鍵約束
+    CONSTRAINT fk_expense_categories_user
+        FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+
+    -- 唯一約束：同一使用者的分類名稱只會有一筆
+    UNIQUE KEY uk_expense_category (user_id, name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='支出分類字典';
+
 CREATE TABLE IF NOT EXISTS expenses (
     id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主鍵 ID',
     user_id BIGINT NOT NULL COMMENT '使用者 ID',
     title VARCHAR(100) NOT NULL COMMENT '支出標題',
     amount DECIMAL(12, 2) NOT NULL COMMENT '支出金額',
-    category VARCHAR(50) NOT NULL COMMENT '支出分類',
+    category_id INT NOT NULL COMMENT '支出分類 ID（expense_categories）',
     expense_date DATE NOT NULL COMMENT '支出日期',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '建立時間',
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新時間',
@@ -91,14 +109,16 @@ CREATE TABLE IF NOT EXISTS expenses (
     -- 外鍵約束
     CONSTRAINT fk_expenses_user
         FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT fk_expenses_category
+        FOREIGN KEY (category_id) REFERENCES expense_categories(id),
 
     -- 索引
     INDEX idx_user_id (user_id),
-    INDEX idx_category (category),
     INDEX idx_expense_date (expense_date),
     INDEX idx_user_date (user_id, expense_date),
-    INDEX idx_user_category (user_id, category),
-    INDEX idx_category_date (category, expense_date)
+    INDEX idx_user_category_date (user_id, category_id, expense_date),
+    INDEX idx_user_amount (user_id, amount),
+    INDEX idx_user_title (user_id, title)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='支出紀錄表';
 
 -- ============================================
@@ -218,12 +238,13 @@ ORDER BY total_amount DESC;
 
 -- 查詢各分類的支出統計（所有使用者）
 SELECT
-    category,
+    c.name AS category,
     COUNT(*) AS count,
-    SUM(amount) AS total,
-    AVG(amount) AS average
-FROM expenses
-GROUP BY category
+    SUM(e.amount) AS total,
+    AVG(e.amount) AS average
+FROM expenses e
+JOIN expense_categories c ON c.id = e.category_id
+GROUP BY c.name
 ORDER BY total DESC;
 
 -- 查詢特定使用者的支出
@@ -231,11 +252,12 @@ SELECT
     e.id,
     e.title,
     e.amount,
-    e.category,
+    c.name AS category,
     e.expense_date,
     u.username
 FROM expenses e
 JOIN users u ON e.user_id = u.id
+JOIN expense_categories c ON c.id = e.category_id
 WHERE u.username = 'your_username'
 ORDER BY e.expense_date DESC;
 
@@ -244,8 +266,11 @@ ORDER BY e.expense_date DESC;
 -- ============================================
 
 -- 清理過期的驗證 Token
+-- （應用程式每天會自動分段清除，見 VerificationTokenPurgeJob；以下為手動執行用）
 DELETE FROM verification_tokens
-WHERE expires_at < NOW() AND used_at IS NULL;
+WHERE expires_at < NOW() - INTERVAL 1 DAY
+ORDER BY expires_at
+LIMIT 1000;
 
 -- 查看資料庫大小
 SELECT
@@ -263,6 +288,7 @@ CREATE TABLE IF NOT EXISTS budgets (
     user_id BIGINT NOT NULL COMMENT '使用者 ID',
     budget_type VARCHAR(20) NOT NULL COMMENT '預算類型: MONTHLY, CATEGORY',
     category VARCHAR(50) COMMENT '分類名稱（分類預算時使用）',
+    category_key VARCHAR(50) NOT NULL DEFAULT '' COMMENT '唯一鍵用的分類值（月度預算為空字串）',
     amount DECIMAL(10, 2) NOT NULL COMMENT '預算金額',
     year INT NOT NULL COMMENT '年份',
     month INT NOT NULL COMMENT '月份',
@@ -274,7 +300,8 @@ CREATE TABLE IF NOT EXISTS budgets (
         FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
 
     -- 唯一約束：同一使用者在同一年月的同類型同分類預算只能有一筆
-    UNIQUE KEY unique_budget (user_id, budget_type, category, year, month),
+    -- 使用 category_key 而非 category：category 為 NULL 時 MySQL 不會判定重複
+    UNIQUE KEY uk_budget_slot (user_id, budget_type, category_key, year, month),
 
     -- 索引
     INDEX idx_user_year_month (user_id, year, month),
@@ -285,6 +312,185 @@ CREATE TABLE IF NOT EXISTS budgets (
 DESC budgets;
 SHOW INDEX FROM budgets;
 
+-- ============================================
+-- 15. 建立 email_outbox 資料表（非同步寄信）
+-- ============================================
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主鍵 ID',
+    recipient VARCHAR(255) NOT NULL COMMENT '收件人',
+    subject VARCHAR(255) NOT NULL COMMENT '主旨',
+    body TEXT NOT NULL COMMENT '內容',
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' COMMENT '狀態: PENDING, SENDING, SENT, FAILED',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已嘗試次數（認領時計入）',
+    next_attempt_at TIMESTAMP NOT NULL COMMENT '下次嘗試時間（SENDING 時為認領租約到期時間）',
+    claim_token VARCHAR(36) NULL COMMENT '認領 Token（回報結果時比對，避免覆寫其他節點重新認領後的結果）',
+    last_error VARCHAR(500) NULL COMMENT '最後一次錯誤訊息',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '建立時間',
+    sent_at TIMESTAMP NULL COMMENT '寄出時間',
+
+    -- 索引：派送排程依狀態與到期時間取件
+    INDEX idx_outbox_status_next_attempt (status, next_attempt_at),
+    -- 索引：清除排程依寄出時間刪除已寄出的信件
+    INDEX idx_outbox_status_sent_at (status, sent_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='待寄送 Email（Outbox）';
+
+-- ============================================
+-- 16. 建立 scheduler_locks 資料表（排程租約）
+-- ============================================
+CREATE TABLE IF NOT EXISTS scheduler_locks (
+    name VARCHAR(64) PRIMARY KEY COMMENT '排程名稱',
+    locked_until TIMESTAMP NOT NULL COMMENT '租約到期時間',
+    locked_at TIMESTAMP NOT NULL COMMENT '取得租約時間',
+    locked_by VARCHAR(100) NOT NULL COMMENT '持有租約的節點'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='排程租約';
+
+-- ============================================
+-- 17. 建立 budget_spent_counters 資料表（預算已使用金額計數器）
+-- ============================================
+CREATE TABLE IF NOT EXISTS budget_spent_counters (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主鍵 ID',
+    user_id BIGINT NOT NULL COMMENT '使用者 ID',
+    year INT NOT NULL COMMENT '年份',
+    month INT NOT NULL COMMENT '月份',
+    category VARCHAR(50) NOT NULL DEFAULT '' COMMENT '分類名稱（空字串代表月度總額）',
+    spent DECIMAL(12, 2) NOT NULL DEFAULT 0 COMMENT '已使用金額',
+
+    -- 外鍵約束
+    CONSTRAINT fk_spent_counters_user
+        FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+
+    -- 唯一約束：預算查詢與支出寫入時的 upsert 都依此定位單列
+    UNIQUE KEY uk_spent_counter (user_id, year, month, category)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='預算已使用金額計數器';
+
+-- 既有資料回填：依支出明細建立所有月份的計數器（重複執行會覆寫為正確值）
+INSERT INTO budget_spent_counters (user_id, year, month, category, spent)
+SELECT e.user_id, YEAR(e.expense_date), MONTH(e.expense_date), c.name, SUM(e.amount)
+FROM expenses e JOIN expense_categories c ON c.id = e.category_id
+GROUP BY e.user_id, YEAR(e.expense_date), MONTH(e.expense_date), c.name
+ON DUPLICATE KEY UPDATE spent = VALUES(spent);
+
+INSERT INTO budget_spent_counters (user_id, year, month, category, spent)
+SELECT user_id, YEAR(expense_date), MONTH(expense_date), '', SUM(amount)
+FROM expenses GROUP BY user_id, YEAR(expense_date), MONTH(expense_date)
+ON DUPLICATE KEY UPDATE spent = VALUES(spent);
+
+-- ============================================
+-- 18. 既有 budgets 資料表升級：以 category_key 取代 unique_budget
+-- ============================================
+-- 新建立的資料庫已包含以下變更，只有從舊版升級時需要執行
+-- 執行前請先確認沒有重複的月度預算：
+-- SELECT user_id, year, month, COUNT(*) FROM budgets WHERE budget_type = 'MONTHLY' GROUP BY user_id, year, month HAVING COUNT(*) > 1;
+-- ALTER TABLE budgets ADD COLUMN category_key VARCHAR(50) NOT NULL DEFAULT '' COMMENT '唯一鍵用的分類值（月度預算為空字串）' AFTER category;
+-- UPDATE budgets SET category_key = COALESCE(category, '');
+-- ALTER TABLE budgets DROP INDEX unique_budget, ADD UNIQUE KEY uk_budget_slot (user_id, budget_type, category_key, year, month);
+
+-- ============================================
+-- 19. 建立 recurring_expenses 資料表（每月固定支出範本）
+-- ============================================
+CREATE TABLE IF NOT EXISTS recurring_expenses (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主鍵 ID',
+    user_id BIGINT NOT NULL COMMENT '使用者 ID',
+    title VARCHAR(100) NOT NULL COMMENT '支出標題',
+    amount DECIMAL(12, 2) NOT NULL COMMENT '支出金額',
+    category VARCHAR(50) NOT NULL COMMENT '支出分類',
+    day_of_month INT NOT NULL COMMENT '每月扣款日（1-31，超過當月天數時以月底為準）',
+    start_date DATE NOT NULL COMMENT '開始日期',
+    end_date DATE NULL COMMENT '結束日期（NULL 代表不限）',
+    active BOOLEAN NOT NULL DEFAULT TRUE COMMENT '是否啟用',
+    last_generated_period DATE NULL COMMENT '最近一次已產生支出的月份（該月 1 日）',
+
+    -- 約束條件
+    CONSTRAINT chk_recurring_amount_positive CHECK (amount > 0),
+    CONSTRAINT chk_recurring_day CHECK (day_of_month BETWEEN 1 AND 31),
+
+    -- 外鍵約束
+    CONSTRAINT fk_recurring_expenses_user
+        FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+
+    -- 索引
+    INDEX idx_recurring_user (user_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='每月固定支出範本';
+
+-- ============================================
+-- 20. 既有 expenses 資料表升級：分類改存 category_id
+-- ============================================
+-- 新建立的資料庫已包含以下變更，只有從舊版升級時需要執行
+-- （ddl-auto=update 不會移除舊的 category 欄位，未執行前新增支出會因 category 為 NOT NULL 而失敗）
+-- CREATE TABLE IF NOT EXISTS expense_categories ... （同第 6 節）
+-- INSERT IGNORE INTO expense_categories (user_id, name) SELECT DISTINCT user_id, category FROM expenses;
+-- （只差在大小寫或重音的舊分類會合併為同一筆，與舊版依分類篩選、統計時的比對方式一致；之後這些支出都顯示字典中的寫法）
+-- ALTER TABLE expenses ADD COLUMN category_id INT NULL COMMENT '支出分類 ID（expense_categories）' AFTER amount;
+-- UPDATE expenses e JOIN expense_categories c ON c.user_id = e.user_id AND c.name = e.category SET e.category_id = c.id;
+-- ALTER TABLE expenses MODIFY category_id INT NOT NULL COMMENT '支出分類 ID（expense_categories）';
+-- ALTER TABLE expenses ADD CONSTRAINT fk_expenses_category FOREIGN KEY (category_id) REFERENCES expense_categories(id),
+--     ADD INDEX idx_user_category_date (user_id, category_id, expense_date);
+-- ALTER TABLE expenses DROP INDEX idx_category, DROP INDEX idx_user_category, DROP INDEX idx_category_date, DROP COLUMN category;
+
+-- ============================================
+-- 21. expense_categories 加入分類目錄的使用日期
+-- ============================================
+-- 新建立的資料庫已包含欄位（ddl-auto=update 也會自動新增），從舊版升級時於第 20 節之後執行以回填使用範圍；
+-- 也可在大量刪除支出後重新執行，讓範圍縮回實際資料（只影響篩選效率，查詢結果本身一律以支出明細為準）
+-- UPDATE expense_categories c
+-- JOIN (SELECT category_id, MIN(expense_date) AS first_used, MAX(expense_date) AS last_used
+--       FROM expenses GROUP BY category_id) u ON u.category_id = c.id
+-- SET c.first_used_date = u.first_used, c.last_used_date = u.last_used;
+
+-- ============================================
+-- 22. expenses 組合查詢用索引
+-- ============================================
+-- 新建立的資料庫已包含以下索引，只有從舊版升級時需要執行
+-- /api/expenses/query 依金額排序與標題前綴查詢時使用（InnoDB 次要索引隱含主鍵，可直接支援 keyset 分頁）
+-- ALTER TABLE expenses ADD INDEX idx_user_amount (user_id, amount), ADD INDEX idx_user_title (user_id, title);
+
+-- ============================================
+-- 23. 建立 revoked_tokens 與 user_token_revocations 資料表（Refresh Token 撤銷清單）
+-- ============================================
+-- 登出與輪替後的 Refresh Token 撤銷狀態存在資料庫，重新啟動或多節點部署時仍然有效
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    jti VARCHAR(64) PRIMARY KEY COMMENT 'Refresh Token ID（jti）',
+    expires_at TIMESTAMP NOT NULL COMMENT 'Token 到期時間（過期後可刪除）',
+
+    -- 索引：清除排程依到期時間刪除
+    INDEX idx_revoked_tokens_expires_at (expires_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='已撤銷的 Refresh Token';
+
+CREATE TABLE IF NOT EXISTS user_token_revocations (
+    username VARCHAR(50) PRIMARY KEY COMMENT '使用者帳號',
+    revoked_before_ms BIGINT NOT NULL COMMENT '在此時間（epoch 毫秒，含）之前簽發的 Token 一律無效',
+    expires_at TIMESTAMP NOT NULL COMMENT '撤銷前簽發的 Token 全部過期的時間（過期後可刪除）',
+
+    -- 索引：清除排程依到期時間刪除
+    INDEX idx_user_token_revocations_expires_at (expires_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='使用者層級的 Token 撤銷時間點';
+
+-- ============================================
+-- 24. 建立 expense_write_versions 資料表（標題搜尋索引的跨節點版本號）
+-- ============================================
+-- 每次新增、修改、刪除支出都在同一交易中遞增；各節點搜尋前比對版本，落後時重建記憶體中的索引
+CREATE TABLE IF NOT EXISTS expense_write_versions (
+    user_id BIGINT PRIMARY KEY COMMENT '使用者 ID',
+    version BIGINT NOT NULL COMMENT '支出寫入版本號',
+
+    -- 外鍵約束
+    CONSTRAINT fk_expense_write_versions_user
+        FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='每位使用者的支出寫入版本號';
+
+-- ============================================
+-- 25. 建立 user_data_versions 資料表（讀取端點 ETag 的跨節點版本號）
+-- ============================================
+-- 支出、預算任何異動（包含排程產生的支出與計數器校正）都在同一交易中遞增
+CREATE TABLE IF NOT EXISTS user_data_versions (
+    user_id BIGINT PRIMARY KEY COMMENT '使用者 ID',
+    version BIGINT NOT NULL COMMENT '資料版本號',
+
+    -- 外鍵約束
+    CONSTRAINT fk_user_data_versions_user
+        FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='每位使用者的資料版本號';
+
 -- ============================================
 -- 完成！
 -- ============================================
@@ -0,0 +1,21 @@
+package com.example.expenseapp.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JSON 序列化調校
+ * Blackbird 模組在第一次序列化時為 getter 產生存取器，之後不再走反射，
+ * 對 /api/expenses/date-range 等一次回傳大量支出的端點效果最明顯。
+ * BigDecimal 以一般數字輸出（spring.jackson.generator.write-bigdecimal-as-plain），不會出現 1E+3 這類科學記號。
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.expenseapp.config;
+
+import com.example.expenseapp.service.PooledMailSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * Email 寄送模式設定
+ * app.email.send-mode=pooled 時改用連線池化的 SMTP 寄件器
+ */
+@Configuration
+public class MailConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.email.send-mode", havingValue = "pooled")
+    public PooledMailSender pooledMailSender(
+            JavaMailSender mailSender,
+            MeterRegistry meterRegistry,
+            @Value("${app.email.pool.size:3}") int poolSize,
+            @Value("${app.email.pool.max-idle-millis:60000}") long maxIdleMillis) {
+        if (!(mailSender instanceof JavaMailSenderImpl mailSenderImpl)) {
+            throw new IllegalStateException("Pooled send mode requires JavaMailSenderImpl");
+        }
+        return new PooledMailSender(mailSenderImpl, poolSize, maxIdleMillis, meterRegistry);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.expenseapp.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 啟用背景排程（Email Outbox 派送等）
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
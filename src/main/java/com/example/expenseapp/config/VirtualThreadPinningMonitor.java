@@ -0,0 +1,106 @@
+package com.example.expenseapp.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 虛擬執行緒 pinning 監控
+ * 以 JFR 串流監聽 jdk.VirtualThreadPinned 事件，找出在 synchronized 區塊內阻塞而釘住載體執行緒的位置
+ * （例如 MySQL Connector/J 的 I/O 與 JavaMail 的 SMTP Transport）
+ */
+@Component
+@ConditionalOnProperty(name = "app.threads.pinning-monitor.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    // 依套件前綴歸類 pinning 來源
+    private static final Map<String, String> KNOWN_SOURCES = Map.of(
+            "com.mysql.cj.", "mysql-driver",
+            "com.zaxxer.hikari.", "hikari",
+            "jakarta.mail.", "javamail",
+            "org.eclipse.angus.mail.", "javamail",
+            "com.sun.mail.", "javamail"
+    );
+
+    private final Duration threshold;
+    private final Map<String, LongAdder> pinnedCounts = new ConcurrentHashMap<>();
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(
+            @Value("${app.threads.pinning-monitor.threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(threshold)
+                .withStackTrace();
+        recordingStream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        recordingStream.startAsync();
+        log.info("Virtual thread pinning monitor started (threshold={})", threshold);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    /**
+     * 各來源累計的 pinning 次數
+     */
+    public Map<String, Long> getPinnedCounts() {
+        Map<String, Long> counts = new ConcurrentHashMap<>();
+        pinnedCounts.forEach((source, count) -> counts.put(source, count.sum()));
+        return counts;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+
+        String source = classify(frames);
+        pinnedCounts.computeIfAbsent(source, key -> new LongAdder()).increment();
+
+        StringBuilder trace = new StringBuilder();
+        frames.stream().limit(12).forEach(frame -> trace.append("\n\tat ")
+                .append(frame.getMethod().getType().getName())
+                .append('.')
+                .append(frame.getMethod().getName())
+                .append(':')
+                .append(frame.getLineNumber()));
+
+        log.warn("Virtual thread pinned for {} ms [{}]{}", event.getDuration().toMillis(), source, trace);
+    }
+
+    private String classify(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String className = frame.getMethod().getType().getName();
+            for (Map.Entry<String, String> entry : KNOWN_SOURCES.entrySet()) {
+                if (className.startsWith(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return "other";
+    }
+}
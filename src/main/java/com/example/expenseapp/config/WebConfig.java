@@ -0,0 +1,25 @@
+package com.example.expenseapp.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 統計、預算、圖表等讀取端點啟用 ETag 條件式請求
+ * 版本號存在資料庫中，多節點部署時各節點產生的 ETag 一致
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.http.etag.enabled", havingValue = "true", matchIfMissing = true)
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ConditionalGetInterceptor conditionalGetInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalGetInterceptor)
+                .addPathPatterns("/api/statistics/**", "/api/budgets/**", "/api/charts/**");
+    }
+}
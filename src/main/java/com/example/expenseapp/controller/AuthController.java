@@ -32,6 +32,20 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "以 Refresh Token 換發新的 Token")
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        AuthResponse response = authService.refresh(request);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "登出（撤銷 Refresh Token）")
+    @PostMapping("/logout")
+    public ResponseEntity<MessageResponse> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        MessageResponse response = authService.logout(request);
+        return ResponseEntity.ok(response);
+    }
+
     @Operation(summary = "驗證 Email（點擊信中連結）")
     @GetMapping("/verify")
     public ResponseEntity<MessageResponse> verifyEmail(@RequestParam String token) {
@@ -7,6 +7,8 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -63,6 +65,17 @@ public class BudgetController {
         return ResponseEntity.ok(responses);
     }
 
+    @Operation(summary = "複製預算到下個月",
+            description = "將指定年月的所有預算複製到下個月；下個月已存在的同類型、同分類預算保留不變，回傳下個月的所有預算")
+    @PostMapping("/rollover")
+    public ResponseEntity<List<BudgetResponse>> rolloverBudgets(
+            @Parameter(description = "來源年份", example = "2025") @RequestParam Integer year,
+            @Parameter(description = "來源月份（1-12）", example = "10")
+            @RequestParam @Min(value = 1, message = "月份必須在 1-12 之間") @Max(value = 12, message = "月份必須在 1-12 之間") Integer month) {
+        List<BudgetResponse> responses = budgetService.rolloverBudgets(year, month);
+        return ResponseEntity.ok(responses);
+    }
+
     @Operation(summary = "取得當月所有預算", description = "取得當前月份的所有預算（便利方法）")
     @GetMapping("/current")
     public ResponseEntity<List<BudgetResponse>> getCurrentMonthBudgets() {
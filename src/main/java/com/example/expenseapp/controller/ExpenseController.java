@@ -1,9 +1,12 @@
 package com.example.expenseapp.controller;
 
+import com.example.expenseapp.dto.ExpenseQueryRequest;
+import com.example.expenseapp.dto.ExpenseQueryResponse;
 import com.example.expenseapp.model.Expense;
 import com.example.expenseapp.service.CsvExportService;
 import com.example.expenseapp.service.ExcelExportService;
 import com.example.expenseapp.service.ExpenseService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -20,28 +23,40 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/expenses")
 @Tag(name = "Expense API", description = "管理支出紀錄的 API")
 public class ExpenseController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
+    // NDJSON 串流每輸出幾筆就 flush 一次（第一筆會立即送出）
+    private static final int NDJSON_FLUSH_INTERVAL = 50;
+
     private final ExpenseService expenseService;
     private final CsvExportService csvExportService;
     private final ExcelExportService excelExportService;
+    private final ObjectMapper objectMapper;
 
-    public ExpenseController(ExpenseService expenseService, CsvExportService csvExportService, ExcelExportService excelExportService) {
+    public ExpenseController(ExpenseService expenseService, CsvExportService csvExportService,
+                             ExcelExportService excelExportService, ObjectMapper objectMapper) {
         this.expenseService = expenseService;
         this.csvExportService = csvExportService;
         this.excelExportService = excelExportService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(summary = "取得所有支出紀錄（支援分頁）",
@@ -61,7 +76,8 @@ public class ExpenseController {
         Sort.Direction direction = sortDirection.equalsIgnoreCase("asc")
                 ? Sort.Direction.ASC
                 : Sort.Direction.DESC;
-        Sort sort = Sort.by(direction, sortBy);
+        // category 已改為字典 ID，依分類排序時 JOIN 分類字典依名稱排列
+        Sort sort = Sort.by(direction, "category".equals(sortBy) ? "categoryRef.name" : sortBy);
 
         // 建立分頁物件
         Pageable pageable = PageRequest.of(page, size, sort);
@@ -126,6 +142,22 @@ public class ExpenseController {
         return ResponseEntity.ok(expenses);
     }
 
+    @Operation(summary = "根據日期範圍查詢支出（NDJSON 串流）",
+               description = "Accept: application/x-ndjson 時逐筆輸出，每行一筆 JSON，適合大範圍查詢")
+    @GetMapping(value = "/date-range", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamExpensesByDateRange(
+            @Parameter(description = "開始日期", example = "2025-09-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "結束日期", example = "2025-09-30")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        if (startDate.isAfter(endDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ndjson(out -> expenseService.streamExpensesByDateRange(startDate, endDate, ndjsonWriter(out)));
+    }
+
     @Operation(summary = "根據分類和日期範圍查詢支出", description = "查詢特定分類在指定日期範圍內的支出紀錄")
     @GetMapping("/search")
     public ResponseEntity<List<Expense>> searchExpenses(
@@ -144,6 +176,63 @@ public class ExpenseController {
         return ResponseEntity.ok(expenses);
     }
 
+    @Operation(summary = "根據分類和日期範圍查詢支出（NDJSON 串流）",
+               description = "Accept: application/x-ndjson 時逐筆輸出，每行一筆 JSON")
+    @GetMapping(value = "/search", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamSearchExpenses(
+            @Parameter(description = "支出分類", example = "食物")
+            @RequestParam String category,
+            @Parameter(description = "開始日期", example = "2025-09-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "結束日期", example = "2025-09-30")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        if (startDate.isAfter(endDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ndjson(out -> expenseService.streamExpensesByCategoryAndDateRange(
+                category, startDate, endDate, ndjsonWriter(out)));
+    }
+
+    @Operation(summary = "組合查詢支出",
+               description = "分類（可多個）、日期範圍、金額範圍、標題前綴任意組合，依 expenseDate 或 amount 排序，" +
+                       "以 nextCursor 取得下一頁")
+    @GetMapping("/query")
+    public ResponseEntity<ExpenseQueryResponse> queryExpenses(@Valid @ModelAttribute ExpenseQueryRequest request) {
+        if (request.getStartDate() != null && request.getEndDate() != null
+                && request.getStartDate().isAfter(request.getEndDate())) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (request.getMinAmount() != null && request.getMaxAmount() != null
+                && request.getMinAmount().compareTo(request.getMaxAmount()) > 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            return ResponseEntity.ok(expenseService.queryExpenses(request));
+        } catch (IllegalArgumentException e) {
+            // 游標無效或與排序條件不符
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "依標題搜尋支出", description = "搜尋標題包含關鍵字的支出（不分大小寫與全半形），依日期由新到舊排序")
+    @GetMapping("/search/title")
+    public ResponseEntity<List<Expense>> searchExpensesByTitle(
+            @Parameter(description = "關鍵字", example = "星巴克")
+            @RequestParam String q,
+            @Parameter(description = "最多回傳筆數（1-200）", example = "50")
+            @RequestParam(defaultValue = "50") int limit) {
+
+        if (q.isBlank() || limit < 1 || limit > 200) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Expense> expenses = expenseService.searchByTitle(q.strip(), limit);
+        return ResponseEntity.ok(expenses);
+    }
+
     @Operation(summary = "取得日期範圍內的所有分類", description = "取得指定日期範圍內使用過的所有分類")
     @GetMapping("/categories")
     public ResponseEntity<List<String>> getCategoriesByDateRange(
@@ -271,6 +360,30 @@ public class ExpenseController {
         }
     }
 
+    private ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    /**
+     * 每筆支出輸出一行 JSON，定期 flush 讓客戶端邊讀邊處理
+     */
+    private Consumer<Expense> ndjsonWriter(OutputStream out) {
+        int[] written = {0};
+        return expense -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(expense));
+                out.write('\n');
+                if (++written[0] % NDJSON_FLUSH_INTERVAL == 1) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
     /**
      * 處理驗證錯誤
      */
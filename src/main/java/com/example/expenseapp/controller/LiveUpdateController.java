@@ -0,0 +1,28 @@
+package com.example.expenseapp.controller;
+
+import com.example.expenseapp.service.LiveUpdateService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/live")
+@Tag(name = "即時更新 API", description = "以 Server-Sent Events 推送預算與統計變化")
+public class LiveUpdateController {
+
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+
+    @Operation(summary = "訂閱即時更新",
+            description = "建立 SSE 連線；當月支出異動後推送 budgets（當月預算）與 summary（當月總覽統計）事件，取代輪詢")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Authentication authentication) {
+        return liveUpdateService.subscribe(authentication.getName());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.expenseapp.controller;
+
+import com.example.expenseapp.model.RecurringExpense;
+import com.example.expenseapp.service.RecurringExpenseService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/recurring-expenses")
+@Tag(name = "固定支出 API", description = "管理每月自動產生的固定支出範本")
+public class RecurringExpenseController {
+
+    @Autowired
+    private RecurringExpenseService recurringExpenseService;
+
+    @Operation(summary = "取得所有固定支出範本")
+    @GetMapping
+    public ResponseEntity<List<RecurringExpense>> getRecurringExpenses() {
+        return ResponseEntity.ok(recurringExpenseService.getRecurringExpenses());
+    }
+
+    @Operation(summary = "新增固定支出範本", description = "每月扣款日當天由排程自動產生支出紀錄")
+    @PostMapping
+    public ResponseEntity<RecurringExpense> createRecurringExpense(@Valid @RequestBody RecurringExpense recurringExpense) {
+        RecurringExpense created = recurringExpenseService.createRecurringExpense(recurringExpense);
+        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+    }
+
+    @Operation(summary = "更新固定支出範本", description = "只影響之後產生的支出，已產生的支出不變")
+    @PutMapping("/{id}")
+    public ResponseEntity<RecurringExpense> updateRecurringExpense(
+            @Parameter(description = "範本 ID") @PathVariable Long id,
+            @Valid @RequestBody RecurringExpense details) {
+        return ResponseEntity.ok(recurringExpenseService.updateRecurringExpense(id, details));
+    }
+
+    @Operation(summary = "刪除固定支出範本", description = "已產生的支出不會被刪除")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteRecurringExpense(
+            @Parameter(description = "範本 ID") @PathVariable Long id) {
+        recurringExpenseService.deleteRecurringExpense(id);
+        return ResponseEntity.noContent().build();
+    }
+}
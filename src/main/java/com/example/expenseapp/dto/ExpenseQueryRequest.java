@@ -0,0 +1,130 @@
+package com.example.expenseapp.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 支出組合查詢條件 DTO（所有條件皆為選填，以 AND 組合）
+ */
+public class ExpenseQueryRequest {
+
+    @Size(max = 50, message = "分類最多 50 個")
+    private List<String> categories;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    @DecimalMin(value = "0", message = "最小金額不能小於 0")
+    private BigDecimal minAmount;
+
+    @DecimalMin(value = "0", message = "最大金額不能小於 0")
+    private BigDecimal maxAmount;
+
+    @Size(max = 100, message = "標題前綴不能超過 100 字元")
+    private String titlePrefix;
+
+    @Pattern(regexp = "expenseDate|amount", message = "排序欄位只能是 expenseDate 或 amount")
+    private String sortBy = "expenseDate";
+
+    @Pattern(regexp = "(?i)asc|desc", message = "排序方向只能是 asc 或 desc")
+    private String sortDirection = "desc";
+
+    @Min(value = 1, message = "每頁筆數必須在 1-100 之間")
+    @Max(value = 100, message = "每頁筆數必須在 1-100 之間")
+    private int size = 20;
+
+    // 上一頁回應中的 nextCursor
+    private String cursor;
+
+    // Getters and Setters
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<String> categories) {
+        this.categories = categories;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+
+    public String getTitlePrefix() {
+        return titlePrefix;
+    }
+
+    public void setTitlePrefix(String titlePrefix) {
+        this.titlePrefix = titlePrefix;
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public void setSortBy(String sortBy) {
+        this.sortBy = sortBy;
+    }
+
+    public String getSortDirection() {
+        return sortDirection;
+    }
+
+    public void setSortDirection(String sortDirection) {
+        this.sortDirection = sortDirection;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+}
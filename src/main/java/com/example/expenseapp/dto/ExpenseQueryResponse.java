@@ -0,0 +1,39 @@
+package com.example.expenseapp.dto;
+
+import com.example.expenseapp.model.Expense;
+
+import java.util.List;
+
+/**
+ * 支出組合查詢結果
+ * nextCursor 為 null 代表已經是最後一頁
+ */
+public class ExpenseQueryResponse {
+    private List<Expense> items;
+    private String nextCursor;
+
+    public ExpenseQueryResponse() {
+    }
+
+    public ExpenseQueryResponse(List<Expense> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<Expense> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Expense> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
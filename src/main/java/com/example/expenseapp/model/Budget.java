@@ -15,7 +15,7 @@ import java.time.LocalDate;
  */
 @Entity
 @Table(name = "budgets", uniqueConstraints = {
-        @UniqueConstraint(columnNames = {"user_id", "budget_type", "category", "year", "month"})
+        @UniqueConstraint(name = "uk_budget_slot", columnNames = {"user_id", "budget_type", "category_key", "year", "month"})
 })
 public class Budget {
 
@@ -35,6 +35,10 @@ public class Budget {
     @Column(name = "category", length = 50)
     private String category;  // 分類預算時必填，月度預算時為 null
 
+    // 唯一鍵用的分類值，月度預算為空字串（category 為 NULL 時唯一約束不會擋下重複的月度預算）
+    @Column(name = "category_key", nullable = false, length = 50)
+    private String categoryKey = "";
+
     @NotNull(message = "預算金額不能為空")
     @DecimalMin(value = "0.01", message = "預算金額必須大於 0")
     @Column(nullable = false, precision = 10, scale = 2)
@@ -64,11 +68,13 @@ public class Budget {
     protected void onCreate() {
         createdAt = LocalDate.now();
         updatedAt = LocalDate.now();
+        categoryKey = category != null ? category : "";
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDate.now();
+        categoryKey = category != null ? category : "";
     }
 
     // Constructors
@@ -0,0 +1,92 @@
+package com.example.expenseapp.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * 預算已使用金額計數器
+ * 每位使用者每月一筆總額（category 為空字串）與每個分類各一筆，隨支出寫入在同一交易中累加，
+ * 讓預算查詢只需讀取單列而不必重新加總整月支出。
+ */
+@Entity
+@Table(name = "budget_spent_counters", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_spent_counter", columnNames = {"user_id", "year", "month", "category"})
+})
+public class BudgetSpentCounter {
+
+    // 月度總額列的 category 值（不用 NULL，才能讓唯一鍵生效）
+    public static final String TOTAL_CATEGORY = "";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Integer year;
+
+    @Column(nullable = false)
+    private Integer month;
+
+    @Column(nullable = false, length = 50)
+    private String category;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal spent;
+
+    // Constructors
+    public BudgetSpentCounter() {
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public void setYear(Integer year) {
+        this.year = year;
+    }
+
+    public Integer getMonth() {
+        return month;
+    }
+
+    public void setMonth(Integer month) {
+        this.month = month;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public BigDecimal getSpent() {
+        return spent;
+    }
+
+    public void setSpent(BigDecimal spent) {
+        this.spent = spent;
+    }
+}
@@ -1,14 +1,19 @@
 package com.example.expenseapp.model;
 
+import com.example.expenseapp.service.ExpenseCategoryListener;
+import com.example.expenseapp.service.ExpenseSpentCounterListener;
+import com.example.expenseapp.service.ExpenseTitleIndexListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Objects;
 
 @Entity
 @Table(name = "expenses")
+@EntityListeners({ExpenseCategoryListener.class, ExpenseSpentCounterListener.class, ExpenseTitleIndexListener.class})
 public class Expense {
 
     @Id
@@ -22,6 +27,7 @@ public class Expense {
 
     @NotBlank(message = "標題不能為空")
     @Size(min = 1, max = 100, message = "標題長度必須在 1-100 字元之間")
+    @Convert(converter = InternedStringConverter.class)
     private String title;
 
     @NotNull(message = "金額不能為空")
@@ -29,6 +35,18 @@ public class Expense {
     @Digits(integer = 10, fraction = 2, message = "金額格式不正確")
     private BigDecimal amount;
 
+    // 資料表只存分類字典的 id；寫入前由名稱換算，載入後再還原名稱
+    @Column(name = "category_id", nullable = false)
+    @JsonIgnore
+    private Integer categoryId;
+
+    // 唯讀關聯，只用於依分類名稱排序（Sort 路徑 categoryRef.name），不會被載入也不會寫入
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id", insertable = false, updatable = false)
+    @JsonIgnore
+    private ExpenseCategory categoryRef;
+
+    @Transient
     @NotBlank(message = "分類不能為空")
     @Size(max = 50, message = "分類長度不能超過 50 字元")
     private String category;
@@ -37,6 +55,14 @@ public class Expense {
     @PastOrPresent(message = "日期不能是未來")
     private LocalDate expenseDate;
 
+    // 最近一次從資料庫載入或寫入時的值，用來計算預算計數器的增減
+    @Transient
+    @JsonIgnore
+    private PersistedState persistedState;
+
+    public record PersistedState(BigDecimal amount, String category, LocalDate expenseDate) {
+    }
+
     // Constructors
     public Expense() {
     }
@@ -94,9 +120,21 @@ public class Expense {
     }
 
     public void setCategory(String category) {
+        // 名稱改變時清除 id，寫入前重新對照字典
+        if (!Objects.equals(this.category, category)) {
+            this.categoryId = null;
+        }
         this.category = category;
     }
 
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+
     public LocalDate getExpenseDate() {
         return expenseDate;
     }
@@ -104,4 +142,12 @@ public class Expense {
     public void setExpenseDate(LocalDate expenseDate) {
         this.expenseDate = expenseDate;
     }
-}
\ No newline at end of file
+
+    public PersistedState getPersistedState() {
+        return persistedState;
+    }
+
+    public void setPersistedState(PersistedState persistedState) {
+        this.persistedState = persistedState;
+    }
+}
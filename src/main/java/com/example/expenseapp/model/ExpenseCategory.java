@@ -0,0 +1,79 @@
+package com.example.expenseapp.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * 支出分類字典（每位使用者各自一份）
+ * expenses 只存 category_id（INT），分類名稱只在這裡存一次，縮小支出資料列與索引。
+ * 同時記錄分類最早與最晚的支出日期，作為篩選下拉選單的分類目錄。
+ */
+@Entity
+@Table(name = "expense_categories", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_expense_category", columnNames = {"user_id", "name"})
+})
+public class ExpenseCategory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 50)
+    private String name;
+
+    // 寫入支出時只會放寬範圍，刪除支出不會縮回
+    @Column(name = "first_used_date")
+    private LocalDate firstUsedDate;
+
+    @Column(name = "last_used_date")
+    private LocalDate lastUsedDate;
+
+    // Constructors
+    public ExpenseCategory() {
+    }
+
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDate getFirstUsedDate() {
+        return firstUsedDate;
+    }
+
+    public void setFirstUsedDate(LocalDate firstUsedDate) {
+        this.firstUsedDate = firstUsedDate;
+    }
+
+    public LocalDate getLastUsedDate() {
+        return lastUsedDate;
+    }
+
+    public void setLastUsedDate(LocalDate lastUsedDate) {
+        this.lastUsedDate = lastUsedDate;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.expenseapp.model;
+
+import jakarta.persistence.*;
+
+/**
+ * 每位使用者的支出寫入版本號
+ * 新增、修改、刪除支出時在同一交易中遞增，各節點的標題搜尋索引以此判斷是否漏掉其他節點的寫入
+ */
+@Entity
+@Table(name = "expense_write_versions")
+public class ExpenseWriteVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long version;
+
+    // Constructors
+    public ExpenseWriteVersion() {
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
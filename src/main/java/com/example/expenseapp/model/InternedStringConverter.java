@@ -0,0 +1,25 @@
+package com.example.expenseapp.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * 載入實體時把重複出現的字串（例如每月相同的支出標題）換成共用實例
+ * 大範圍查詢一次載入數萬筆支出時，同樣的標題只會在堆積中保留一份
+ */
+@Converter
+public class InternedStringConverter implements AttributeConverter<String, String> {
+
+    // 4096 槽位約佔 16KB 陣列；常見標題遠少於此數量
+    static final StringInternPool POOL = new StringInternPool(4096);
+
+    @Override
+    public String convertToDatabaseColumn(String attribute) {
+        return attribute;
+    }
+
+    @Override
+    public String convertToEntityAttribute(String dbData) {
+        return POOL.intern(dbData);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.expenseapp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 每月固定支出範本（房租、訂閱、通勤等）
+ * 由 RecurringExpenseMaterializer 在每月的 dayOfMonth 當天（或之後）產生一筆 Expense；
+ * dayOfMonth 大於該月天數時以月底為準
+ */
+@Entity
+@Table(name = "recurring_expenses")
+public class RecurringExpense {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    private User user;
+
+    @NotBlank(message = "標題不能為空")
+    @Size(min = 1, max = 100, message = "標題長度必須在 1-100 字元之間")
+    @Column(nullable = false, length = 100)
+    private String title;
+
+    @NotNull(message = "金額不能為空")
+    @DecimalMin(value = "0.01", message = "金額必須大於 0")
+    @Digits(integer = 10, fraction = 2, message = "金額格式不正確")
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    @NotBlank(message = "分類不能為空")
+    @Size(max = 50, message = "分類長度不能超過 50 字元")
+    @Column(nullable = false, length = 50)
+    private String category;
+
+    @NotNull(message = "每月扣款日不能為空")
+    @Min(value = 1, message = "每月扣款日必須在 1-31 之間")
+    @Max(value = 31, message = "每月扣款日必須在 1-31 之間")
+    @Column(name = "day_of_month", nullable = false)
+    private Integer dayOfMonth;
+
+    @NotNull(message = "開始日期不能為空")
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    // null 代表沒有結束日期
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    @Column(nullable = false)
+    private Boolean active = true;
+
+    // 最近一次已產生支出的月份（該月 1 日），同一月份只會產生一次
+    @Column(name = "last_generated_period")
+    private LocalDate lastGeneratedPeriod;
+
+    // Constructors
+    public RecurringExpense() {
+    }
+
+    public RecurringExpense(User user, String title, BigDecimal amount, String category, Integer dayOfMonth, LocalDate startDate) {
+        this.user = user;
+        this.title = title;
+        this.amount = amount;
+        this.category = category;
+        this.dayOfMonth = dayOfMonth;
+        this.startDate = startDate;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public Integer getDayOfMonth() {
+        return dayOfMonth;
+    }
+
+    public void setDayOfMonth(Integer dayOfMonth) {
+        this.dayOfMonth = dayOfMonth;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+
+    public LocalDate getLastGeneratedPeriod() {
+        return lastGeneratedPeriod;
+    }
+
+    public void setLastGeneratedPeriod(LocalDate lastGeneratedPeriod) {
+        this.lastGeneratedPeriod = lastGeneratedPeriod;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.expenseapp.model;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 固定大小的字串共用池
+ * 以雜湊值直接對應槽位，相同內容的字串回傳同一個實例；槽位衝突時直接覆寫，
+ * 因此記憶體用量有上限，也不需要鎖。與 String.intern() 不同，池中字串不會永久留在 JVM 字串表。
+ */
+public final class StringInternPool {
+
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+
+    /**
+     * @param capacity 槽位數，會向上取到 2 的次方
+     */
+    public StringInternPool(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mask;
+        String existing = slots.get(index);
+        if (value.equals(existing)) {
+            return existing;
+        }
+        slots.set(index, value);
+        return value;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
@@ -53,7 +53,8 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @Column(name = "last_login_at")
+    // 只由 LastLoginTracker 以 UPDATE 寫入，實體儲存時不可覆蓋
+    @Column(name = "last_login_at", insertable = false, updatable = false)
     private LocalDateTime lastLoginAt;
 
     @PrePersist
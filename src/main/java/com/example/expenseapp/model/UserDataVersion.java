@@ -0,0 +1,40 @@
+package com.example.expenseapp.model;
+
+import jakarta.persistence.*;
+
+/**
+ * 每位使用者的資料版本號
+ * 支出、預算任何異動都在同一交易中遞增，所有節點的讀取端點以此產生 ETag
+ */
+@Entity
+@Table(name = "user_data_versions")
+public class UserDataVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long version;
+
+    // Constructors
+    public UserDataVersion() {
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.expenseapp.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 使用者層級的 Token 撤銷時間點
+ * 偵測到 Refresh Token 被重複使用時寫入，在此時間點（含）之前簽發的 Token 一律無效
+ */
+@Entity
+@Table(name = "user_token_revocations", indexes = {
+        @Index(name = "idx_user_token_revocations_expires_at", columnList = "expires_at")
+})
+public class UserTokenRevocation {
+
+    @Id
+    @Column(length = 50)
+    private String username;
+
+    // 撤銷時間點（epoch 毫秒，與 Token 的簽發時間比較時不受時區與秒數截斷影響）
+    @Column(name = "revoked_before_ms", nullable = false)
+    private Long revokedBeforeMillis;
+
+    // 撤銷時間點之前簽發的 Refresh Token 全部過期的時間，過期後即可刪除
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Constructors
+    public UserTokenRevocation() {
+    }
+
+    // Getters and Setters
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public Long getRevokedBeforeMillis() {
+        return revokedBeforeMillis;
+    }
+
+    public void setRevokedBeforeMillis(Long revokedBeforeMillis) {
+        this.revokedBeforeMillis = revokedBeforeMillis;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -3,10 +3,12 @@ package com.example.expenseapp.repository;
 import com.example.expenseapp.model.Budget;
 import com.example.expenseapp.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,4 +38,15 @@ public interface BudgetRepository extends JpaRepository<Budget, Long> {
 
     // 刪除特定使用者的特定預算
     void deleteByIdAndUser(Long id, User user);
+
+    // 將某月的所有預算複製到另一個月份（單一 INSERT ... SELECT），目標月份已存在的預算略過
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO budgets (user_id, budget_type, category, category_key, amount, year, month, created_at, updated_at) " +
+            "SELECT user_id, budget_type, category, category_key, amount, :targetYear, :targetMonth, :today, :today " +
+            "FROM budgets WHERE user_id = :userId AND year = :sourceYear AND month = :sourceMonth",
+            nativeQuery = true)
+    int copyToMonth(@Param("userId") Long userId,
+                    @Param("sourceYear") Integer sourceYear, @Param("sourceMonth") Integer sourceMonth,
+                    @Param("targetYear") Integer targetYear, @Param("targetMonth") Integer targetMonth,
+                    @Param("today") LocalDate today);
 }
@@ -0,0 +1,20 @@
+package com.example.expenseapp.repository;
+
+import com.example.expenseapp.model.BudgetSpentCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+@Repository
+public interface BudgetSpentCounterRepository extends JpaRepository<BudgetSpentCounter, Long> {
+
+    // 單列查詢已使用金額（category 傳空字串代表月度總額）
+    @Query("SELECT c.spent FROM BudgetSpentCounter c " +
+            "WHERE c.userId = :userId AND c.year = :year AND c.month = :month AND c.category = :category")
+    Optional<BigDecimal> findSpent(@Param("userId") Long userId, @Param("year") Integer year,
+                                   @Param("month") Integer month, @Param("category") String category);
+}
@@ -0,0 +1,49 @@
+package com.example.expenseapp.repository;
+
+import com.example.expenseapp.model.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // 取出到期待寄送的 Email 並上鎖（SKIP LOCKED：多個節點同時執行時各自取得不同批次）
+    // SENDING 且租約已到期的信件代表認領的節點沒有回報結果，一併重新取件
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM EmailOutbox o WHERE o.status IN ('PENDING', 'SENDING') AND o.nextAttemptAt <= :now ORDER BY o.id")
+    List<EmailOutbox> findDueForDispatch(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // 已到期、等待派送的信件數（監控指標用，走 status, next_attempt_at 索引）
+    @Query("SELECT COUNT(o) FROM EmailOutbox o WHERE o.status = 'PENDING' AND o.nextAttemptAt <= :now")
+    long countDue(@Param("now") LocalDateTime now);
+
+    // 回報結果時以認領 Token 為條件：租約到期後被其他節點重新認領的信件不會被舊的結果覆寫
+    @Modifying
+    @Query(value = "UPDATE email_outbox SET status = 'SENT', sent_at = :sentAt, last_error = NULL, claim_token = NULL " +
+            "WHERE id IN (:ids) AND claim_token = :claimToken AND status = 'SENDING'", nativeQuery = true)
+    int markSent(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query(value = "UPDATE email_outbox SET status = :status, next_attempt_at = :nextAttemptAt, last_error = :error, " +
+            "claim_token = NULL WHERE id = :id AND claim_token = :claimToken AND status = 'SENDING'", nativeQuery = true)
+    int markFailed(@Param("id") Long id, @Param("claimToken") String claimToken, @Param("status") String status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    // 依 (status, sent_at) 索引分段刪除已寄出超過保留期的信件
+    @Modifying
+    @Query(value = "DELETE FROM email_outbox WHERE status = 'SENT' AND sent_at < :cutoff ORDER BY sent_at LIMIT :limit",
+            nativeQuery = true)
+    int deleteSentChunk(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
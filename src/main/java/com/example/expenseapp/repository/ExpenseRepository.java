@@ -5,16 +5,22 @@ import com.example.expenseapp.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ExpenseRepository extends JpaRepository<Expense, Long> {
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, JpaSpecificationExecutor<Expense> {
 
     // 查詢特定使用者的所有支出
     List<Expense> findByUser(User user);
@@ -26,28 +32,39 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     // 查詢特定使用者的特定支出
     Optional<Expense> findByIdAndUser(Long id, User user);
 
-    // 根據分類查詢（限定使用者）
-    List<Expense> findByUserAndCategory(User user, String category);
-    Page<Expense> findByUserAndCategory(User user, String category, Pageable pageable);
+    // 根據分類查詢（限定使用者，分類 id 由 ExpenseCategoryService 換算）
+    List<Expense> findByUserAndCategoryId(User user, Integer categoryId);
+    Page<Expense> findByUserAndCategoryId(User user, Integer categoryId, Pageable pageable);
 
     // 根據日期範圍查詢（限定使用者）
     List<Expense> findByUserAndExpenseDateBetween(User user, LocalDate startDate, LocalDate endDate);
     Page<Expense> findByUserAndExpenseDateBetween(User user, LocalDate startDate, LocalDate endDate, Pageable pageable);
 
     // 根據分類和日期範圍查詢（限定使用者）
-    @Query("SELECT e FROM Expense e WHERE e.user = :user AND e.category = :category AND e.expenseDate BETWEEN :startDate AND :endDate")
+    @Query("SELECT e FROM Expense e WHERE e.user = :user AND e.categoryId = :categoryId AND e.expenseDate BETWEEN :startDate AND :endDate")
     List<Expense> findByUserAndCategoryAndDateRange(
             @Param("user") User user,
-            @Param("category") String category,
+            @Param("categoryId") Integer categoryId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    // 串流查詢（NDJSON 輸出用）：MySQL 驅動在 fetch size 為 Integer.MIN_VALUE 時逐列讀取，不會一次載入整個結果集
+    // 必須在交易內使用，並在使用完畢後關閉 Stream
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT e FROM Expense e WHERE e.user = :user AND e.expenseDate BETWEEN :startDate AND :endDate ORDER BY e.expenseDate DESC, e.id DESC")
+    Stream<Expense> streamByUserAndDateRange(
+            @Param("user") User user,
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate
     );
 
-    // 查詢指定日期範圍內的所有分類（限定使用者）
-    @Query("SELECT DISTINCT e.category FROM Expense e WHERE e.user = :user AND e.expenseDate BETWEEN :startDate AND :endDate ORDER BY e.category")
-    List<String> findDistinctCategoriesByUserAndDateRange(
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT e FROM Expense e WHERE e.user = :user AND e.categoryId = :categoryId AND e.expenseDate BETWEEN :startDate AND :endDate ORDER BY e.expenseDate DESC, e.id DESC")
+    Stream<Expense> streamByUserAndCategoryAndDateRange(
             @Param("user") User user,
+            @Param("categoryId") Integer categoryId,
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate
     );
-}
\ No newline at end of file
+}
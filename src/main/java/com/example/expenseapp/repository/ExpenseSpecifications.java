@@ -0,0 +1,76 @@
+package com.example.expenseapp.repository;
+
+import com.example.expenseapp.model.Expense;
+import com.example.expenseapp.model.User;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * 支出組合查詢的條件片段
+ * 每個條件都直接作用在 expenses 欄位上（不 join、不包函式），
+ * 讓 MySQL 可以使用 (user_id, ...) 開頭的複合索引。
+ */
+public final class ExpenseSpecifications {
+
+    private ExpenseSpecifications() {
+    }
+
+    public static Specification<Expense> ownedBy(User user) {
+        return (root, query, cb) -> cb.equal(root.get("user"), user);
+    }
+
+    public static Specification<Expense> categoryIdIn(Collection<Integer> categoryIds) {
+        return (root, query, cb) -> root.get("categoryId").in(categoryIds);
+    }
+
+    public static Specification<Expense> expenseDateFrom(LocalDate startDate) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("expenseDate"), startDate);
+    }
+
+    public static Specification<Expense> expenseDateTo(LocalDate endDate) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("expenseDate"), endDate);
+    }
+
+    public static Specification<Expense> amountAtLeast(BigDecimal minAmount) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("amount"), minAmount);
+    }
+
+    public static Specification<Expense> amountAtMost(BigDecimal maxAmount) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("amount"), maxAmount);
+    }
+
+    /**
+     * 標題前綴比對（LIKE 'prefix%'），跳脫 % 與 _ 避免被當成萬用字元
+     * 以 ! 作為跳脫字元：MySQL 字串中的反斜線本身也需要跳脫，容易產生錯誤的 SQL
+     */
+    public static Specification<Expense> titleStartsWith(String prefix) {
+        String escaped = prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return (root, query, cb) -> cb.like(root.get("title"), escaped + "%", '!');
+    }
+
+    /**
+     * Keyset 分頁：排在上一頁最後一筆 (value, id) 之後的資料
+     * 排序為 (field, id) 同方向，因此條件為 field 超過 value，或 field 相同且 id 超過 lastId
+     */
+    public static <T extends Comparable<? super T>> Specification<Expense> after(
+            String field, T value, Long lastId, boolean descending) {
+        return (root, query, cb) -> {
+            Expression<T> path = root.get(field);
+            Expression<Long> id = root.get("id");
+            return cb.or(
+                    beyond(cb, path, value, descending),
+                    cb.and(cb.equal(path, value), beyond(cb, id, lastId, descending)));
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Predicate beyond(
+            CriteriaBuilder cb, Expression<T> path, T value, boolean descending) {
+        return descending ? cb.lessThan(path, value) : cb.greaterThan(path, value);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.expenseapp.repository;
+
+import com.example.expenseapp.model.RecurringExpense;
+import com.example.expenseapp.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RecurringExpenseRepository extends JpaRepository<RecurringExpense, Long> {
+
+    // 查詢特定使用者的所有固定支出範本
+    List<RecurringExpense> findByUserOrderByDayOfMonthAscIdAsc(User user);
+
+    // 查詢特定使用者的特定範本
+    Optional<RecurringExpense> findByIdAndUser(Long id, User user);
+}
@@ -0,0 +1,40 @@
+package com.example.expenseapp.repository;
+
+import com.example.expenseapp.model.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    // 第一次使用時建立租約（已存在則忽略，回傳 0）
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO scheduler_locks (name, locked_until, locked_at, locked_by) VALUES (:name, :until, :now, :owner)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("until") LocalDateTime until,
+                       @Param("now") LocalDateTime now, @Param("owner") String owner);
+
+    // 租約已過期時接手（條件式更新，同一時間只有一個節點會成功）
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :until, l.lockedAt = :now, l.lockedBy = :owner " +
+            "WHERE l.name = :name AND l.lockedUntil <= :now")
+    int acquireIfExpired(@Param("name") String name, @Param("until") LocalDateTime until,
+                         @Param("now") LocalDateTime now, @Param("owner") String owner);
+
+    // 延長自己仍持有（尚未過期）的租約，回傳 0 代表租約已遺失
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :until " +
+            "WHERE l.name = :name AND l.lockedBy = :owner AND l.lockedUntil > :now")
+    int renew(@Param("name") String name, @Param("until") LocalDateTime until,
+              @Param("now") LocalDateTime now, @Param("owner") String owner);
+
+    // 提前釋放自己持有的租約
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :now WHERE l.name = :name AND l.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("now") LocalDateTime now, @Param("owner") String owner);
+}
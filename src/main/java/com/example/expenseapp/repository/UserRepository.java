@@ -2,8 +2,10 @@ package com.example.expenseapp.repository;
 
 import com.example.expenseapp.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +16,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
     Optional<User> findByGoogleId(String googleId);
+
+    // 只取 ID，供 JWT 驗證時的停權名單使用
+    @Query("SELECT u.id FROM User u WHERE u.status = :status")
+    List<Long> findIdsByStatus(User.UserStatus status);
 }
\ No newline at end of file
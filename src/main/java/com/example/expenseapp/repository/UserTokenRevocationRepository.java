@@ -0,0 +1,32 @@
+package com.example.expenseapp.repository;
+
+import com.example.expenseapp.model.UserTokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserTokenRevocationRepository extends JpaRepository<UserTokenRevocation, String> {
+
+    // 寫入或推進撤銷時間點（只會往後移，多節點同時撤銷時保留最晚的時間點）
+    @Modifying
+    @Query(value = "INSERT INTO user_token_revocations (username, revoked_before_ms, expires_at) " +
+            "VALUES (:username, :revokedBefore, :expiresAt) " +
+            "ON DUPLICATE KEY UPDATE revoked_before_ms = GREATEST(revoked_before_ms, VALUES(revoked_before_ms)), " +
+            "expires_at = GREATEST(expires_at, VALUES(expires_at))",
+            nativeQuery = true)
+    int upsert(@Param("username") String username, @Param("revokedBefore") long revokedBefore,
+               @Param("expiresAt") LocalDateTime expiresAt);
+
+    // 仍有效的撤銷時間點，供記憶體快取定期重新載入
+    List<UserTokenRevocation> findByExpiresAtAfter(LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM UserTokenRevocation r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -4,6 +4,9 @@ import com.example.expenseapp.model.VerificationToken;
 import com.example.expenseapp.model.VerificationToken.TokenType;
 import com.example.expenseapp.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -13,6 +16,16 @@ import java.util.Optional;
 public interface VerificationTokenRepository extends JpaRepository<VerificationToken, Long> {
     Optional<VerificationToken> findByToken(String token);
     Optional<VerificationToken> findByUserAndTokenType(User user, TokenType tokenType);
-    void deleteByExpiresAtBefore(LocalDateTime now);
     void deleteByUser(User user);
-}
\ No newline at end of file
+
+    // 批量刪除過期 Token（直接下 DELETE，不先載入實體）
+    @Modifying
+    @Query("DELETE FROM VerificationToken t WHERE t.expiresAt < :now")
+    int deleteByExpiresAtBefore(@Param("now") LocalDateTime now);
+
+    // 依 expires_at 索引順序分段刪除，每次最多 limit 筆，避免長時間鎖表
+    @Modifying
+    @Query(value = "DELETE FROM verification_tokens WHERE expires_at < :cutoff ORDER BY expires_at LIMIT :limit",
+            nativeQuery = true)
+    int deleteExpiredChunk(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
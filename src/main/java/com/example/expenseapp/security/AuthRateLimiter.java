@@ -0,0 +1,93 @@
+package com.example.expenseapp.security;
+
+import com.example.expenseapp.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * 認證端點的限流
+ * 依來源 IP 與帳號（帳號或 Email）各自維護 Token Bucket，
+ * 拒絕時不查資料庫、不做密碼雜湊，也不會寄信。
+ */
+@Component
+public class AuthRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthRateLimiter.class);
+
+    private static final String TOO_MANY_MESSAGE = "請求過於頻繁，請稍後再試";
+
+    private final boolean enabled;
+    private final Duration idleEviction;
+    private final TokenBucketRateLimiter ipLimiter;
+    private final TokenBucketRateLimiter accountLimiter;
+    private final Counter ipRejectedCounter;
+    private final Counter accountRejectedCounter;
+
+    public AuthRateLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${app.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.rate-limit.ip.capacity:20}") long ipCapacity,
+            @Value("${app.rate-limit.ip.refill-per-minute:20}") long ipRefillPerMinute,
+            @Value("${app.rate-limit.account.capacity:5}") long accountCapacity,
+            @Value("${app.rate-limit.account.refill-per-minute:5}") long accountRefillPerMinute,
+            @Value("${app.rate-limit.max-entries:100000}") int maxEntries,
+            @Value("${app.rate-limit.idle-eviction:10m}") Duration idleEviction) {
+        this.enabled = enabled;
+        this.idleEviction = idleEviction;
+        this.ipLimiter = new TokenBucketRateLimiter(ipCapacity, ipRefillPerMinute, maxEntries);
+        this.accountLimiter = new TokenBucketRateLimiter(accountCapacity, accountRefillPerMinute, maxEntries);
+        this.ipRejectedCounter = Counter.builder("auth.rate_limit.rejected").tag("scope", "ip").register(meterRegistry);
+        this.accountRejectedCounter = Counter.builder("auth.rate_limit.rejected").tag("scope", "account").register(meterRegistry);
+    }
+
+    /**
+     * 依來源 IP 限流
+     * @return 0 代表允許；否則為建議的重試秒數
+     */
+    public long tryAcquireForIp(String ip) {
+        if (!enabled) {
+            return 0;
+        }
+        long waitNanos = ipLimiter.tryAcquire(ip);
+        if (waitNanos == 0) {
+            return 0;
+        }
+        ipRejectedCounter.increment();
+        return Math.max(1, Duration.ofNanos(waitNanos).toSeconds());
+    }
+
+    /**
+     * 依帳號限流，超過時拋出 TooManyRequestsException
+     * 每種操作各自計算，登入失敗不會用掉忘記密碼的額度
+     */
+    public void checkAccount(String action, String account) {
+        if (!enabled || account == null) {
+            return;
+        }
+        if (accountLimiter.tryAcquire(action + ":" + account.trim().toLowerCase(Locale.ROOT)) > 0) {
+            accountRejectedCounter.increment();
+            throw new TooManyRequestsException(TOO_MANY_MESSAGE);
+        }
+    }
+
+    public String getTooManyMessage() {
+        return TOO_MANY_MESSAGE;
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval:60000}")
+    public void evictIdleBuckets() {
+        long idleNanos = idleEviction.toNanos();
+        int evicted = ipLimiter.evictIdle(idleNanos) + accountLimiter.evictIdle(idleNanos);
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets", evicted);
+        }
+    }
+}
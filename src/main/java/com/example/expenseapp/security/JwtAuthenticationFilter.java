@@ -1,10 +1,12 @@
 package com.example.expenseapp.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -24,13 +26,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // 信任已驗證簽章的 claims，直接建立登入資訊而不查資料庫
+    @Value("${app.security.jwt.trusted-claims:true}")
+    private boolean trustedClaims;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -40,12 +48,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
 
         try {
-            username = jwtService.extractUsername(jwt);
-
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                // 驗證簽章與有效期（只解析一次）
+                Claims claims = jwtService.parseAccessToken(jwt);
+                UserDetails userDetails = resolveUser(claims);
 
-                if (jwtService.validateToken(jwt, userDetails)) {
+                if (userDetails != null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -63,4 +71,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private UserDetails resolveUser(Claims claims) {
+        AuthenticatedUser authenticatedUser = trustedClaims ? jwtService.toAuthenticatedUser(claims) : null;
+        if (authenticatedUser != null) {
+            // 只檢查記憶體中的停權與撤銷名單
+            return tokenRevocationService.isAccessRevoked(authenticatedUser.getId(), claims) ? null : authenticatedUser;
+        }
+
+        // 未啟用信任模式，或舊版 Token 沒有 uid：從資料庫載入
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        return userDetails.getUsername().equals(claims.getSubject()) ? userDetails : null;
+    }
+}
@@ -1,50 +1,248 @@
 package com.example.expenseapp.security;
 
+import com.example.expenseapp.model.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
-import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret}")
+    public static final String CLAIM_TOKEN_TYPE = "typ";
+    public static final String TOKEN_TYPE_ACCESS = "access";
+    public static final String TOKEN_TYPE_REFRESH = "refresh";
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_STATUS = "status";
+    public static final String CLAIM_ROLES = "roles";
+    // 毫秒精度的簽發時間（標準 iat 只到秒，撤銷時間點與簽發落在同一秒時無法分辨先後）
+    public static final String CLAIM_ISSUED_AT_MILLIS = "iat_ms";
+
+    // 目前系統只有一般使用者角色
+    private static final List<String> DEFAULT_ROLES = List.of("USER");
+
+    private static final ObjectMapper HEADER_MAPPER = new ObjectMapper();
+
+    // HS256：共用密鑰；ES256：私鑰簽章、公鑰驗證（依 kid 輪替）
+    @Value("${jwt.algorithm:HS256}")
+    private String algorithm;
+
+    @Value("${jwt.secret:}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${jwt.refresh-expiration:1209600000}")
+    private Long refreshExpiration;
+
+    // 目前用來簽章的金鑰 ID，會寫入 Token header 的 kid
+    @Value("${jwt.es256.key-id:}")
+    private String keyId;
+
+    // PKCS#8 PEM 私鑰位置；未設定時此節點只驗證不簽發
+    @Value("${jwt.es256.private-key:}")
+    private String privateKeyLocation;
+
+    // 可接受的公鑰清單，格式：kid=位置,kid=位置（輪替期間同時列出新舊金鑰）
+    @Value("${jwt.es256.public-keys:}")
+    private String publicKeyLocations;
+
+    private final ResourceLoader resourceLoader = new DefaultResourceLoader();
+
+    // 啟動時載入一次，之後每次簽章／驗證都重複使用
+    private Key signingKey;
+    private SignatureAlgorithm signatureAlgorithm;
+    private JwtParser hmacParser;
+    private final Map<String, JwtParser> parsersByKeyId = new HashMap<>();
+
+    @PostConstruct
+    void initKeys() {
+        if ("ES256".equalsIgnoreCase(algorithm)) {
+            initEcKeys();
+        } else if ("HS256".equalsIgnoreCase(algorithm)) {
+            if (!StringUtils.hasText(secret)) {
+                throw new IllegalStateException("jwt.secret is required when jwt.algorithm=HS256");
+            }
+            signatureAlgorithm = SignatureAlgorithm.HS256;
+            signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        } else {
+            throw new IllegalStateException("Unsupported jwt.algorithm: " + algorithm);
+        }
+
+        // 切換到 ES256 的過渡期間，若仍設定 jwt.secret，舊的 HS256 Token 可繼續驗證到過期
+        if (StringUtils.hasText(secret)) {
+            hmacParser = Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                    .build();
+        }
+    }
+
+    private void initEcKeys() {
+        signatureAlgorithm = SignatureAlgorithm.ES256;
+        try {
+            for (String entry : StringUtils.commaDelimitedListToStringArray(publicKeyLocations)) {
+                String[] parts = entry.trim().split("=", 2);
+                if (parts.length != 2) {
+                    throw new IllegalStateException("Invalid jwt.es256.public-keys entry: " + entry);
+                }
+                PublicKey publicKey = KeyFactory.getInstance("EC")
+                        .generatePublic(new X509EncodedKeySpec(readPem(parts[1].trim())));
+                parsersByKeyId.put(parts[0].trim(), Jwts.parserBuilder().setSigningKey(publicKey).build());
+            }
+
+            if (StringUtils.hasText(privateKeyLocation)) {
+                if (!parsersByKeyId.containsKey(keyId)) {
+                    throw new IllegalStateException("jwt.es256.key-id must match one of jwt.es256.public-keys");
+                }
+                PrivateKey privateKey = KeyFactory.getInstance("EC")
+                        .generatePrivate(new PKCS8EncodedKeySpec(readPem(privateKeyLocation)));
+                signingKey = privateKey;
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to load JWT keys: " + e.getMessage(), e);
+        }
+
+        if (parsersByKeyId.isEmpty()) {
+            throw new IllegalStateException("jwt.es256.public-keys is required when jwt.algorithm=ES256");
+        }
+    }
+
+    private byte[] readPem(String location) throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        try (InputStream in = resource.getInputStream()) {
+            String pem = new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+            String base64 = pem.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+            return Base64.getDecoder().decode(base64);
+        }
     }
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername());
+        claims.put(CLAIM_TOKEN_TYPE, TOKEN_TYPE_ACCESS);
+        return createToken(claims, userDetails.getUsername(), expiration);
+    }
+
+    /**
+     * Access Token 帶有使用者 ID、狀態與角色，驗證時可直接由 claims 建立登入資訊
+     */
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_TOKEN_TYPE, TOKEN_TYPE_ACCESS);
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_STATUS, user.getStatus().toString());
+        claims.put(CLAIM_ROLES, DEFAULT_ROLES);
+        return createToken(claims, user.getUsername(), expiration);
     }
 
-    private String createToken(Map<String, Object> claims, String subject) {
+    /**
+     * 產生長效的 Refresh Token（每次使用後輪替，jti 用於撤銷檢查）
+     */
+    public String generateRefreshToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_TOKEN_TYPE, TOKEN_TYPE_REFRESH);
+        claims.put(Claims.ID, UUID.randomUUID().toString());
+        return createToken(claims, user.getUsername(), refreshExpiration);
+    }
+
+    private String createToken(Map<String, Object> claims, String subject, Long validity) {
+        if (signingKey == null) {
+            throw new IllegalStateException("This node is configured as verifier-only (no jwt.es256.private-key)");
+        }
+
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + expiration);
+        Date expiryDate = new Date(now.getTime() + validity);
+        claims.put(CLAIM_ISSUED_AT_MILLIS, now.getTime());
 
-        return Jwts.builder()
+        var builder = Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+                .setExpiration(expiryDate);
+        if (signatureAlgorithm == SignatureAlgorithm.ES256) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, keyId);
+        }
+        return builder.signWith(signingKey, signatureAlgorithm).compact();
+    }
+
+    /**
+     * 驗證 Refresh Token 的簽章與有效期，回傳其內容
+     * 簽章錯誤、過期或不是 Refresh Token 時拋出 JwtException
+     */
+    public Claims parseRefreshToken(String token) {
+        Claims claims = extractAllClaims(token);
+        if (!TOKEN_TYPE_REFRESH.equals(claims.get(CLAIM_TOKEN_TYPE, String.class)) || claims.getId() == null) {
+            throw new JwtException("Not a refresh token");
+        }
+        return claims;
+    }
+
+    /**
+     * 驗證 Access Token 的簽章與有效期，回傳其內容（Refresh Token 會被拒絕）
+     */
+    public Claims parseAccessToken(String token) {
+        Claims claims = extractAllClaims(token);
+        if (TOKEN_TYPE_REFRESH.equals(claims.get(CLAIM_TOKEN_TYPE, String.class))) {
+            throw new JwtException("Refresh token cannot be used as access token");
+        }
+        return claims;
+    }
+
+    /**
+     * 由 claims 建立登入使用者；舊版 Token 沒有 uid 時回傳 null
+     */
+    @SuppressWarnings("unchecked")
+    public AuthenticatedUser toAuthenticatedUser(Claims claims) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        if (userId == null) {
+            return null;
+        }
+        List<String> roles = claims.get(CLAIM_ROLES, List.class);
+        return new AuthenticatedUser(userId, claims.getSubject(), claims.get(CLAIM_STATUS, String.class),
+                roles != null ? roles : DEFAULT_ROLES);
+    }
+
+    /**
+     * Token 的簽發時間（毫秒）；沒有 iat_ms 的舊版 Token 以 iat 該秒的最後一毫秒計算（與撤銷同一秒時視為已撤銷）
+     */
+    public static long issuedAtMillis(Claims claims) {
+        Long millis = claims.get(CLAIM_ISSUED_AT_MILLIS, Long.class);
+        if (millis != null) {
+            return millis;
+        }
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() + 999 : Long.MAX_VALUE;
     }
 
     public String extractUsername(String token) {
@@ -61,23 +259,61 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return parserFor(token)
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * 依 Token header 的 kid 選擇事先建立好的 parser（不做任何金鑰推導）
+     */
+    private JwtParser parserFor(String token) {
+        String kid = readKeyId(token);
+        if (kid != null) {
+            JwtParser parser = parsersByKeyId.get(kid);
+            if (parser == null) {
+                throw new JwtException("Unknown JWT key id: " + kid);
+            }
+            return parser;
+        }
+        if (hmacParser == null) {
+            throw new JwtException("JWT without key id is not accepted");
+        }
+        return hmacParser;
+    }
+
+    private String readKeyId(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            throw new MalformedJwtException("Invalid JWT format");
+        }
+        try {
+            JsonNode header = HEADER_MAPPER.readTree(Base64.getUrlDecoder().decode(token.substring(0, dot)));
+            JsonNode kid = header.get(JwsHeader.KEY_ID);
+            return kid != null && kid.isTextual() ? kid.asText() : null;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new MalformedJwtException("Invalid JWT header", e);
+        }
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        // 只解析一次（每次解析都會驗證簽章）
+        final Claims claims = extractAllClaims(token);
+        return claims.getSubject().equals(userDetails.getUsername())
+                && !claims.getExpiration().before(new Date())
+                // Refresh Token 不能當作 Access Token 使用
+                && !TOKEN_TYPE_REFRESH.equals(claims.get(CLAIM_TOKEN_TYPE, String.class));
+    }
+
+    public boolean canSign() {
+        return signingKey != null;
     }
 
     public Long getExpirationTime() {
         return expiration;
     }
-}
\ No newline at end of file
+
+    public Long getRefreshExpirationTime() {
+        return refreshExpiration;
+    }
+}
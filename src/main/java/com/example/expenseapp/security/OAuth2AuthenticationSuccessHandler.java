@@ -2,6 +2,7 @@ package com.example.expenseapp.security;
 
 import com.example.expenseapp.model.User;
 import com.example.expenseapp.repository.UserRepository;
+import com.example.expenseapp.service.LastLoginTracker;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -27,6 +28,9 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private LastLoginTracker lastLoginTracker;
+
     @Value("${app.frontend.url}")
     private String frontendUrl;
 
@@ -43,18 +47,12 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
         User user = userRepository.findByGoogleId(googleId)
                 .orElseThrow(() -> new RuntimeException("找不到使用者"));
 
-        // 更新最後登入時間
-        user.setLastLoginAt(LocalDateTime.now());
-        userRepository.save(user);
+        // 更新最後登入時間（非同步合併寫入）
+        lastLoginTracker.recordLogin(user.getId(), LocalDateTime.now());
 
         // 產生 JWT Token
-        org.springframework.security.core.userdetails.User userDetails =
-                new org.springframework.security.core.userdetails.User(
-                        user.getUsername(),
-                        "",
-                        java.util.Collections.emptyList()
-                );
-        String token = jwtService.generateToken(userDetails);
+        String token = jwtService.generateToken(user);
+        String refreshToken = jwtService.generateRefreshToken(user);
 
         // URL 編碼所有參數（支援中文）
         String encodedUsername = URLEncoder.encode(user.getUsername(), StandardCharsets.UTF_8);
@@ -64,6 +62,7 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
         // 重定向到測試頁面，帶上 Token
         String targetUrl = UriComponentsBuilder.fromUriString(frontendUrl + "/oauth2-test.html")
                 .queryParam("token", token)
+                .queryParam("refreshToken", refreshToken)
                 .queryParam("username", encodedUsername)
                 .queryParam("email", encodedEmail)
                 .queryParam("name", encodedName)
@@ -0,0 +1,120 @@
+package com.example.expenseapp.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 記憶體內的 Token Bucket 限流器
+ * 每個 key 一個桶，以 CAS 更新狀態（無鎖）；桶的數量有上限，
+ * 達到上限時先淘汰最早建立且已閒置的桶再建立新桶，避免大量偽造來源把記憶體撐爆，
+ * 同時每個新來源仍有自己的桶，不會因為偽造來源灌滿而被一起限流。
+ */
+public class TokenBucketRateLimiter {
+
+    // 淘汰時最多讓仍在使用中的桶移到隊尾幾次，之後直接淘汰最早的桶
+    private static final int MAX_SECOND_CHANCES = 8;
+
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // 桶的建立順序（淘汰候選）
+    private final ConcurrentLinkedQueue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final long capacity;
+    private final double tokensPerNano;
+    private final long fullRefillNanos;
+    private final int maxEntries;
+
+    /**
+     * @param capacity        桶的容量（可瞬間連續請求的次數）
+     * @param refillPerMinute 每分鐘補充的 token 數
+     * @param maxEntries      最多追蹤的 key 數量
+     */
+    public TokenBucketRateLimiter(long capacity, long refillPerMinute, int maxEntries) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.fullRefillNanos = (long) Math.ceil(capacity / tokensPerNano);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 嘗試取得一個 token
+     * @return 0 代表允許；大於 0 代表被拒絕，值為建議等待的奈秒數
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxEntries) {
+                evictOne(now);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> {
+                insertionOrder.add(k);
+                return new Bucket(capacity, now);
+            });
+        }
+        return bucket.tryConsume(now);
+    }
+
+    /**
+     * 騰出一個位置：從最早建立的桶開始找，已補滿（閒置）的桶直接淘汰；
+     * 仍在使用中的桶移到隊尾，超過次數後淘汰當下最早的桶（該 key 下次請求會拿到新的桶）
+     */
+    private void evictOne(long now) {
+        int secondChances = 0;
+        String candidate;
+        while ((candidate = insertionOrder.poll()) != null) {
+            Bucket bucket = buckets.get(candidate);
+            if (bucket == null) {
+                continue;
+            }
+            boolean idle = now - bucket.state.get().lastRefill >= fullRefillNanos;
+            if (idle || secondChances++ >= MAX_SECOND_CHANCES) {
+                buckets.remove(candidate, bucket);
+                return;
+            }
+            insertionOrder.add(candidate);
+        }
+    }
+
+    /**
+     * 移除閒置超過指定時間的桶（閒置夠久的桶必定已補滿，移除不影響限流結果）
+     */
+    public int evictIdle(long idleNanos) {
+        long now = System.nanoTime();
+        long threshold = Math.max(idleNanos, fullRefillNanos);
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> now - bucket.state.get().lastRefill > threshold);
+        insertionOrder.removeIf(key -> !buckets.containsKey(key));
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private final class Bucket {
+
+        private final AtomicReference<State> state;
+
+        Bucket(long tokens, long now) {
+            this.state = new AtomicReference<>(new State(tokens, now));
+        }
+
+        long tryConsume(long now) {
+            while (true) {
+                State current = state.get();
+                long elapsed = Math.max(0, now - current.lastRefill);
+                double available = Math.min(capacity, current.tokens + elapsed * tokensPerNano);
+                if (available < 1) {
+                    return (long) Math.ceil((1 - available) / tokensPerNano);
+                }
+                if (state.compareAndSet(current, new State(available - 1, Math.max(now, current.lastRefill)))) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    private record State(double tokens, long lastRefill) {
+    }
+}
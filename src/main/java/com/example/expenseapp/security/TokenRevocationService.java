@@ -0,0 +1,159 @@
+package com.example.expenseapp.security;
+
+import com.example.expenseapp.model.User.UserStatus;
+import com.example.expenseapp.model.UserTokenRevocation;
+import com.example.expenseapp.repository.RevokedTokenRepository;
+import com.example.expenseapp.repository.UserRepository;
+import com.example.expenseapp.repository.UserTokenRevocationRepository;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token 撤銷與停權清單
+ * 已使用或已登出的 Refresh Token jti、使用者層級的撤銷時間點都寫入資料庫，
+ * 重新啟動後仍然有效，且所有節點看到同一份清單（重複使用偵測以 jti 主鍵的 INSERT IGNORE 判定，跨節點也只有一次成功）；
+ * 記憶體中的 Map 只是快取。
+ * Refresh Token 換發時查資料庫；Access Token 驗證只看記憶體中的停權名單與撤銷時間點，
+ * 由排程定期從資料庫重新載入，讓每個請求不需要查資料庫（其他節點的撤銷最長在重新載入間隔內生效）。
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private UserTokenRevocationRepository userTokenRevocationRepository;
+
+    private volatile Set<Long> suspendedUserIds = Set.of();
+
+    // 快取：jti -> Token 到期時間（毫秒），只放已確認撤銷的 jti
+    private final ConcurrentHashMap<String, Long> revokedTokenIds = new ConcurrentHashMap<>();
+
+    // 快取：username -> 在此時間（含，毫秒）之前簽發的 Token 一律無效
+    private volatile ConcurrentHashMap<String, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    @Value("${jwt.refresh-expiration:1209600000}")
+    private Long refreshExpiration;
+
+    /**
+     * Refresh Token 檢查：jti 已撤銷，或在使用者撤銷時間點之前簽發
+     */
+    public boolean isRevoked(Claims claims) {
+        if (revokedTokenIds.containsKey(claims.getId()) || isRevokedBefore(revokedBefore.get(claims.getSubject()), claims)) {
+            return true;
+        }
+
+        // 快取未命中時以資料庫為準（其他節點或重新啟動前的撤銷）
+        if (revokedTokenRepository.existsById(claims.getId())) {
+            revokedTokenIds.put(claims.getId(), claims.getExpiration().getTime());
+            return true;
+        }
+        return userTokenRevocationRepository.findById(claims.getSubject())
+                .map(revocation -> {
+                    cacheRevokedBefore(revocation.getUsername(), revocation.getRevokedBeforeMillis());
+                    return isRevokedBefore(revocation.getRevokedBeforeMillis(), claims);
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Access Token 檢查：使用者已停權，或在撤銷時間點之前簽發（只看記憶體）
+     */
+    public boolean isAccessRevoked(Long userId, Claims claims) {
+        if (suspendedUserIds.contains(userId)) {
+            return true;
+        }
+        return isRevokedBefore(revokedBefore.get(claims.getSubject()), claims);
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.jwt.suspension-refresh-interval:30000}")
+    public void reloadSuspendedUsers() {
+        try {
+            suspendedUserIds = Set.copyOf(userRepository.findIdsByStatus(UserStatus.SUSPENDED));
+
+            ConcurrentHashMap<String, Long> reloaded = new ConcurrentHashMap<>();
+            for (UserTokenRevocation revocation : userTokenRevocationRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+                reloaded.put(revocation.getUsername(), revocation.getRevokedBeforeMillis());
+            }
+            // 保留本節點剛寫入、但載入查詢開始後才提交的撤銷
+            revokedBefore.forEach((username, before) -> reloaded.merge(username, before, Math::max));
+            revokedBefore = reloaded;
+        } catch (RuntimeException e) {
+            // 保留上一份名單，下次排程再試
+            log.warn("Failed to reload suspended users: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 輪替時標記舊 Token 已使用（獨立交易，呼叫端回滾也不會撤回）
+     * @return false 代表此 Token 已經被使用過（可能遭竊），呼叫端應拒絕並撤銷該使用者全部 Token
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean markUsed(Claims claims) {
+        boolean firstUse = revokedTokenRepository.insertIfAbsent(claims.getId(), toLocalDateTime(claims.getExpiration().getTime())) == 1;
+        revokedTokenIds.put(claims.getId(), claims.getExpiration().getTime());
+        return firstUse;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void revoke(Claims claims) {
+        revokedTokenRepository.insertIfAbsent(claims.getId(), toLocalDateTime(claims.getExpiration().getTime()));
+        revokedTokenIds.put(claims.getId(), claims.getExpiration().getTime());
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void revokeAllForUser(String username) {
+        long now = System.currentTimeMillis();
+        userTokenRevocationRepository.upsert(username, now, toLocalDateTime(now + refreshExpiration));
+        cacheRevokedBefore(username, now);
+    }
+
+    public int size() {
+        return revokedTokenIds.size();
+    }
+
+    // 已過期的 Token 本身就無法通過驗證，不需要再留在撤銷清單中（多節點同時執行也只是重複刪除）
+    @Scheduled(fixedDelayString = "${app.token.revocation.cleanup-interval:600000}")
+    @Transactional
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        revokedTokenIds.values().removeIf(expiresAt -> expiresAt < now);
+        revokedBefore.values().removeIf(before -> before + refreshExpiration < now);
+
+        LocalDateTime cutoff = toLocalDateTime(now);
+        int tokens = revokedTokenRepository.deleteExpired(cutoff);
+        int users = userTokenRevocationRepository.deleteExpired(cutoff);
+        log.debug("Removed {} expired revoked tokens and {} expired user revocations", tokens, users);
+    }
+
+    private void cacheRevokedBefore(String username, long before) {
+        revokedBefore.merge(username, before, Math::max);
+    }
+
+    private static boolean isRevokedBefore(Long before, Claims claims) {
+        return before != null && JwtService.issuedAtMillis(claims) <= before;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -8,13 +8,13 @@ import com.example.expenseapp.model.VerificationToken;
 import com.example.expenseapp.model.VerificationToken.TokenType;
 import com.example.expenseapp.repository.UserRepository;
 import com.example.expenseapp.repository.VerificationTokenRepository;
+import com.example.expenseapp.security.AuthRateLimiter;
 import com.example.expenseapp.security.JwtService;
+import com.example.expenseapp.security.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -41,10 +41,13 @@ public class AuthService {
     private EmailService emailService;
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private LastLoginTracker lastLoginTracker;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private AuthRateLimiter authRateLimiter;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
     @Value("${app.token.email-verification.expiration}")
     private Long emailVerificationExpiration;
@@ -54,6 +57,9 @@ public class AuthService {
 
     @Transactional
     public MessageResponse register(RegisterRequest request) {
+        // 依 Email 限流（在查詢資料庫之前）
+        authRateLimiter.checkAccount("register", request.getEmail());
+
         // 檢查帳號是否已存在
         if (userRepository.existsByUsername(request.getUsername())) {
             throw new UserAlreadyExistsException("帳號已被使用");
@@ -92,25 +98,29 @@ public class AuthService {
         );
         tokenRepository.save(verificationToken);
 
-        // 發送驗證信
+        // 發送驗證信（寫入 Outbox，交易提交後由背景排程寄出）
         emailService.sendVerificationEmail(user.getEmail(), user.getName(), token);
 
         return new MessageResponse("註冊成功！請檢查您的 Email 完成驗證");
     }
 
-    @Transactional
+    /**
+     * 登入：只查詢一次使用者，直接以該筆資料驗證密碼並產生 Token
+     * 不開啟交易，避免 BCrypt 運算期間佔用資料庫連線；最後登入時間交由 LastLoginTracker 批次寫回
+     */
     public AuthResponse login(LoginRequest request) {
+        // 依帳號限流（在查詢資料庫與驗證密碼之前）
+        authRateLimiter.checkAccount("login", request.getUsernameOrEmail());
+
         // 查找使用者
         User user = userRepository.findByUsernameOrEmail(request.getUsernameOrEmail(), request.getUsernameOrEmail())
                 .orElseThrow(() -> new InvalidCredentialsException("帳號或密碼錯誤"));
 
-        // 驗證密碼
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        user.getUsername(),
-                        request.getPassword()
-                )
-        );
+        // 驗證密碼（OAuth 使用者沒有密碼，不能以密碼登入）
+        if (user.getPassword() == null || user.getPassword().isEmpty()
+                || !passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+            throw new InvalidCredentialsException("帳號或密碼錯誤");
+        }
 
         // 檢查帳號狀態
         if (user.getStatus() == UserStatus.UNVERIFIED) {
@@ -121,13 +131,57 @@ public class AuthService {
             throw new AccountSuspendedException("您的帳號已被停權，請聯繫客服");
         }
 
-        // 更新最後登入時間
-        user.setLastLoginAt(LocalDateTime.now());
-        userRepository.save(user);
+        // 更新最後登入時間（非同步合併寫入）
+        lastLoginTracker.recordLogin(user.getId(), LocalDateTime.now());
 
         // 產生 JWT Token
-        UserDetails userDetails = userDetailsService.loadUserByUsername(user.getUsername());
-        String token = jwtService.generateToken(userDetails);
+        return buildAuthResponse(user);
+    }
+
+    /**
+     * 以 Refresh Token 換發新的 Access Token 與 Refresh Token（輪替）
+     * 只驗證簽章與撤銷清單，不做密碼雜湊
+     */
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        Claims claims = parseRefreshToken(request.getRefreshToken());
+
+        if (tokenRevocationService.isRevoked(claims)) {
+            throw new InvalidCredentialsException("登入已失效，請重新登入");
+        }
+
+        // 已輪替過的 Token 再次出現，視為遭竊：撤銷該使用者所有 Refresh Token
+        if (!tokenRevocationService.markUsed(claims)) {
+            tokenRevocationService.revokeAllForUser(claims.getSubject());
+            throw new InvalidCredentialsException("登入已失效，請重新登入");
+        }
+
+        User user = userRepository.findByUsername(claims.getSubject())
+                .orElseThrow(() -> new InvalidCredentialsException("登入已失效，請重新登入"));
+
+        if (user.getStatus() == UserStatus.SUSPENDED) {
+            throw new AccountSuspendedException("您的帳號已被停權，請聯繫客服");
+        }
+
+        return buildAuthResponse(user);
+    }
+
+    public MessageResponse logout(RefreshTokenRequest request) {
+        Claims claims = parseRefreshToken(request.getRefreshToken());
+        tokenRevocationService.revoke(claims);
+        return new MessageResponse("已成功登出");
+    }
+
+    private Claims parseRefreshToken(String refreshToken) {
+        try {
+            return jwtService.parseRefreshToken(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new InvalidCredentialsException("登入已失效，請重新登入");
+        }
+    }
+
+    private AuthResponse buildAuthResponse(User user) {
+        String token = jwtService.generateToken(user);
+        String refreshToken = jwtService.generateRefreshToken(user);
 
         UserInfo userInfo = new UserInfo(
                 user.getId(),
@@ -137,7 +191,7 @@ public class AuthService {
                 user.getStatus().toString()
         );
 
-        return new AuthResponse(token, jwtService.getExpirationTime(), userInfo);
+        return new AuthResponse(token, refreshToken, jwtService.getExpirationTime(), userInfo);
     }
 
     @Transactional
@@ -174,6 +228,8 @@ public class AuthService {
 
     @Transactional
     public MessageResponse resendVerificationEmail(String email) {
+        authRateLimiter.checkAccount("resend-verification", email);
+
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("找不到此 Email 的使用者"));
 
@@ -194,7 +250,7 @@ public class AuthService {
         );
         tokenRepository.save(verificationToken);
 
-        // 發送驗證信
+        // 發送驗證信（寫入 Outbox，交易提交後由背景排程寄出）
         emailService.sendVerificationEmail(user.getEmail(), user.getName(), token);
 
         return new MessageResponse("驗證信已重新發送，請檢查您的 Email");
@@ -202,6 +258,8 @@ public class AuthService {
 
     @Transactional
     public MessageResponse forgotPassword(ForgotPasswordRequest request) {
+        authRateLimiter.checkAccount("forgot-password", request.getEmail());
+
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new ResourceNotFoundException("找不到此 Email 的使用者"));
 
@@ -214,7 +272,7 @@ public class AuthService {
         );
         tokenRepository.save(resetToken);
 
-        // 發送密碼重設信
+        // 發送密碼重設信（寫入 Outbox，交易提交後由背景排程寄出）
         emailService.sendPasswordResetEmail(user.getEmail(), user.getName(), token);
 
         return new MessageResponse("密碼重設信已發送，請檢查您的 Email");
@@ -249,6 +307,9 @@ public class AuthService {
         resetToken.markAsUsed();
         tokenRepository.save(resetToken);
 
+        // 重設前簽發的 Refresh Token 一律失效（可能已遭竊）
+        tokenRevocationService.revokeAllForUser(user.getUsername());
+
         return new MessageResponse("密碼已成功重設，請使用新密碼登入");
     }
 }
\ No newline at end of file
@@ -4,12 +4,11 @@ import com.example.expenseapp.dto.BudgetRequest;
 import com.example.expenseapp.dto.BudgetResponse;
 import com.example.expenseapp.exception.ResourceNotFoundException;
 import com.example.expenseapp.model.Budget;
-import com.example.expenseapp.model.Expense;
 import com.example.expenseapp.model.User;
 import com.example.expenseapp.repository.BudgetRepository;
-import com.example.expenseapp.repository.ExpenseRepository;
 import com.example.expenseapp.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -25,15 +24,20 @@ import java.util.List;
 @Service
 public class BudgetService {
 
+    private static final String BUDGET_SLOT_CONSTRAINT = "uk_budget_slot";
+
     @Autowired
     private BudgetRepository budgetRepository;
 
     @Autowired
-    private ExpenseRepository expenseRepository;
+    private BudgetSpentCounterService budgetSpentCounterService;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDataVersionService userDataVersionService;
+
     /**
      * 取得當前登入的使用者
      */
@@ -64,22 +68,6 @@ public class BudgetService {
             throw new IllegalArgumentException("分類預算必須指定分類");
         }
 
-        // 檢查是否已存在相同的預算
-        if (budgetType == Budget.BudgetType.MONTHLY) {
-            budgetRepository.findMonthlyBudget(user, request.getYear(), request.getMonth())
-                    .ifPresent(b -> {
-                        throw new IllegalArgumentException(
-                                String.format("已存在 %d 年 %d 月的月度預算", request.getYear(), request.getMonth()));
-                    });
-        } else {
-            budgetRepository.findCategoryBudget(user, request.getYear(), request.getMonth(), request.getCategory())
-                    .ifPresent(b -> {
-                        throw new IllegalArgumentException(
-                                String.format("已存在 %d 年 %d 月分類「%s」的預算",
-                                        request.getYear(), request.getMonth(), request.getCategory()));
-                    });
-        }
-
         // 建立預算
         Budget budget = new Budget();
         budget.setUser(user);
@@ -89,7 +77,21 @@ public class BudgetService {
         budget.setYear(request.getYear());
         budget.setMonth(request.getMonth());
 
-        Budget savedBudget = budgetRepository.save(budget);
+        // 直接寫入，由唯一約束 uk_budget_slot 判斷是否重複（不先查詢，並行建立時也不會產生兩筆）
+        Budget savedBudget;
+        try {
+            savedBudget = budgetRepository.saveAndFlush(budget);
+        } catch (DataIntegrityViolationException e) {
+            // 只有撞到 uk_budget_slot 才是重複預算，其他約束錯誤（例如外鍵）照原樣拋出
+            if (!isDuplicateSlot(e)) {
+                throw e;
+            }
+            throw new IllegalArgumentException(budgetType == Budget.BudgetType.MONTHLY
+                    ? String.format("已存在 %d 年 %d 月的月度預算", request.getYear(), request.getMonth())
+                    : String.format("已存在 %d 年 %d 月分類「%s」的預算",
+                            request.getYear(), request.getMonth(), request.getCategory()));
+        }
+        userDataVersionService.bump(user.getId());
 
         // 計算已使用金額並回傳
         return buildBudgetResponse(savedBudget);
@@ -107,6 +109,7 @@ public class BudgetService {
         // 只允許更新金額
         budget.setAmount(request.getAmount());
         Budget updatedBudget = budgetRepository.save(budget);
+        userDataVersionService.bump(user.getId());
 
         return buildBudgetResponse(updatedBudget);
     }
@@ -120,6 +123,24 @@ public class BudgetService {
         Budget budget = budgetRepository.findByIdAndUser(id, user)
                 .orElseThrow(() -> new ResourceNotFoundException("找不到 ID 為 " + id + " 的預算"));
         budgetRepository.delete(budget);
+        userDataVersionService.bump(user.getId());
+    }
+
+    /**
+     * 將指定月份的預算複製到下個月，下個月已有的預算（同類型、同分類）保留不變
+     * 回傳下個月的所有預算
+     */
+    @Transactional
+    public List<BudgetResponse> rolloverBudgets(Integer year, Integer month) {
+        User user = getCurrentUser();
+        YearMonth target = YearMonth.of(year, month).plusMonths(1);
+
+        int copied = budgetRepository.copyToMonth(user.getId(), year, month,
+                target.getYear(), target.getMonthValue(), LocalDate.now());
+        if (copied > 0) {
+            userDataVersionService.bump(user.getId());
+        }
+        return getBudgetsByMonth(target.getYear(), target.getMonthValue());
     }
 
     /**
@@ -154,31 +175,19 @@ public class BudgetService {
         return getBudgetsByMonth(now.getYear(), now.getMonthValue());
     }
 
+    private static boolean isDuplicateSlot(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains(BUDGET_SLOT_CONSTRAINT);
+    }
+
     /**
      * 建立 BudgetResponse（包含已使用金額等計算）
      */
     private BudgetResponse buildBudgetResponse(Budget budget) {
-        User user = budget.getUser();
-        YearMonth yearMonth = YearMonth.of(budget.getYear(), budget.getMonth());
-        LocalDate startDate = yearMonth.atDay(1);
-        LocalDate endDate = yearMonth.atEndOfMonth();
-
-        // 計算已使用金額
-        BigDecimal spent;
-        if (budget.getBudgetType() == Budget.BudgetType.MONTHLY) {
-            // 月度預算：計算該月所有支出
-            List<Expense> expenses = expenseRepository.findByUserAndExpenseDateBetween(user, startDate, endDate);
-            spent = expenses.stream()
-                    .map(Expense::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-        } else {
-            // 分類預算：計算該月該分類的支出
-            List<Expense> expenses = expenseRepository.findByUserAndCategoryAndDateRange(
-                    user, budget.getCategory(), startDate, endDate);
-            spent = expenses.stream()
-                    .map(Expense::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-        }
+        // 已使用金額：讀取計數器單列（月度預算讀總額列，分類預算讀該分類列）
+        String category = budget.getBudgetType() == Budget.BudgetType.MONTHLY ? null : budget.getCategory();
+        BigDecimal spent = budgetSpentCounterService.getSpent(
+                budget.getUser().getId(), budget.getYear(), budget.getMonth(), category);
 
         // 計算剩餘金額
         BigDecimal remaining = budget.getAmount().subtract(spent);
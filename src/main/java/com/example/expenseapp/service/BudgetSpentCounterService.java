@@ -0,0 +1,215 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.model.BudgetSpentCounter;
+import com.example.expenseapp.model.Expense;
+import com.example.expenseapp.repository.BudgetSpentCounterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 預算已使用金額計數器
+ * 支出寫入時以單一 upsert 累加差額（分類列與月度總額列），並判斷是否跨過預算警示門檻；讀取時只查單列；
+ * 計數器若與支出明細不一致，由 {@link BudgetSpentReconciliationJob} 依明細重新計算。
+ */
+@Service
+public class BudgetSpentCounterService {
+
+    // 依 (年, 月, 分類) 排序，多列 upsert 時固定加鎖順序，避免並行寫入互相死結
+    // 分類不分大小寫，與資料表的 utf8mb4_unicode_ci 唯一鍵一致（只差大小寫的分類是同一列計數器）
+    private static final Comparator<CounterKey> KEY_ORDER = Comparator.comparingInt(CounterKey::year)
+            .thenComparingInt(CounterKey::month)
+            .thenComparing(CounterKey::category, String.CASE_INSENSITIVE_ORDER);
+
+    private static final String UPSERT_PREFIX =
+            "INSERT INTO budget_spent_counters (user_id, year, month, category, spent) VALUES ";
+    private static final String UPSERT_SUFFIX = " ON DUPLICATE KEY UPDATE spent = spent + VALUES(spent)";
+
+    @Autowired
+    private BudgetSpentCounterRepository counterRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BudgetThresholdEvaluator budgetThresholdEvaluator;
+
+    @Autowired
+    private UserDataVersionService userDataVersionService;
+
+    private record CounterKey(int year, int month, String category) {
+    }
+
+    private record CounterRow(long userId, String category) {
+    }
+
+    /**
+     * 取得已使用金額；category 為 null 時代表月度總額
+     */
+    public BigDecimal getSpent(Long userId, int year, int month, String category) {
+        String key = category != null ? category : BudgetSpentCounter.TOTAL_CATEGORY;
+        return counterRepository.findSpent(userId, year, month, key).orElse(BigDecimal.ZERO);
+    }
+
+    /**
+     * 依支出異動前後的值累加差額；before 為 null 代表新增，after 為 null 代表刪除
+     * 需在支出寫入的交易中呼叫
+     */
+    public void recordChange(Long userId, Expense.PersistedState before, Expense.PersistedState after) {
+        Map<CounterKey, BigDecimal> deltas = new TreeMap<>(KEY_ORDER);
+        if (before != null) {
+            addDelta(deltas, before, before.amount().negate());
+        }
+        if (after != null) {
+            addDelta(deltas, after, after.amount());
+        }
+        applyDeltas(userId, deltas);
+    }
+
+    /**
+     * 一次累加同一使用者的多筆新增支出（依月份、分類合併成單一 upsert），供批次寫入支出時使用
+     * 需在支出寫入的交易中呼叫
+     */
+    public void recordAdditions(Long userId, List<Expense.PersistedState> added) {
+        Map<CounterKey, BigDecimal> deltas = new TreeMap<>(KEY_ORDER);
+        for (Expense.PersistedState state : added) {
+            addDelta(deltas, state, state.amount());
+        }
+        applyDeltas(userId, deltas);
+    }
+
+    private void applyDeltas(Long userId, Map<CounterKey, BigDecimal> deltas) {
+        deltas.values().removeIf(delta -> delta.signum() == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder(UPSERT_PREFIX);
+        List<Object> args = new ArrayList<>(deltas.size() * 5);
+        for (Map.Entry<CounterKey, BigDecimal> entry : deltas.entrySet()) {
+            if (!args.isEmpty()) {
+                sql.append(", ");
+            }
+            sql.append("(?, ?, ?, ?, ?)");
+            CounterKey key = entry.getKey();
+            args.add(userId);
+            args.add(key.year());
+            args.add(key.month());
+            args.add(key.category());
+            args.add(entry.getValue());
+        }
+        sql.append(UPSERT_SUFFIX);
+        jdbcTemplate.update(sql.toString(), args.toArray());
+
+        // 依月份分組後判斷預算警示門檻（修改日期時可能同時影響兩個月份）
+        Map<YearMonth, Map<String, BigDecimal>> deltasByMonth = new TreeMap<>();
+        deltas.forEach((key, delta) -> deltasByMonth
+                .computeIfAbsent(YearMonth.of(key.year(), key.month()), month -> new TreeMap<>(String.CASE_INSENSITIVE_ORDER))
+                .put(key.category(), delta));
+        deltasByMonth.forEach((month, monthDeltas) ->
+                budgetThresholdEvaluator.evaluate(userId, month.getYear(), month.getMonthValue(), monthDeltas));
+    }
+
+    /**
+     * 依 id 順序取得 afterUserId 之後的下一段使用者（id -> username），供校正排程分段處理
+     */
+    public Map<Long, String> findUserChunk(long afterUserId, int limit) {
+        Map<Long, String> users = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, username FROM users WHERE id > ? ORDER BY id LIMIT ?",
+                rs -> {
+                    users.put(rs.getLong("id"), rs.getString("username"));
+                },
+                afterUserId, limit);
+        return users;
+    }
+
+    /**
+     * 依支出明細重新計算一段使用者（users 的 id 範圍）某個月份的計數器，回傳寫入與移除的列數
+     * 需在交易中呼叫；INSERT ... SELECT 會鎖住讀取到的支出列，期間的並行寫入會等待而不會遺漏，
+     * 只鎖這段使用者的資料，其他使用者的寫入不受影響。
+     * 計數器有被修正的使用者會遞增資料版本，讓 ETag 失效。
+     */
+    public int reconcileMonth(YearMonth yearMonth, Map<Long, String> users) {
+        if (users.isEmpty()) {
+            return 0;
+        }
+        LocalDate startDate = yearMonth.atDay(1);
+        LocalDate endDate = yearMonth.atEndOfMonth();
+        int year = yearMonth.getYear();
+        int month = yearMonth.getMonthValue();
+        long fromUserId = Collections.min(users.keySet());
+        long toUserId = Collections.max(users.keySet());
+
+        // 先鎖住並記下目前的計數器，校正後比對哪些使用者的值有變動
+        Map<CounterRow, BigDecimal> before = readCounters(year, month, fromUserId, toUserId, " FOR UPDATE");
+
+        int categoryRows = jdbcTemplate.update(
+                "INSERT INTO budget_spent_counters (user_id, year, month, category, spent) " +
+                        "SELECT e.user_id, ?, ?, k.name, SUM(e.amount) FROM expenses e " +
+                        "JOIN expense_categories k ON k.id = e.category_id " +
+                        "WHERE e.user_id BETWEEN ? AND ? AND e.expense_date BETWEEN ? AND ? GROUP BY e.user_id, k.name " +
+                        "ON DUPLICATE KEY UPDATE spent = VALUES(spent)",
+                year, month, fromUserId, toUserId, startDate, endDate);
+        int totalRows = jdbcTemplate.update(
+                "INSERT INTO budget_spent_counters (user_id, year, month, category, spent) " +
+                        "SELECT user_id, ?, ?, ?, SUM(amount) FROM expenses " +
+                        "WHERE user_id BETWEEN ? AND ? AND expense_date BETWEEN ? AND ? GROUP BY user_id " +
+                        "ON DUPLICATE KEY UPDATE spent = VALUES(spent)",
+                year, month, BudgetSpentCounter.TOTAL_CATEGORY, fromUserId, toUserId, startDate, endDate);
+        // 已無任何支出的計數器直接移除（查無資料視為 0）
+        int removedRows = jdbcTemplate.update(
+                "DELETE c FROM budget_spent_counters c WHERE c.user_id BETWEEN ? AND ? AND c.year = ? AND c.month = ? " +
+                        "AND NOT EXISTS (" +
+                        "SELECT 1 FROM expenses e JOIN expense_categories k ON k.id = e.category_id " +
+                        "WHERE e.user_id = c.user_id AND e.expense_date BETWEEN ? AND ? " +
+                        "AND (c.category = ? OR k.name = c.category))",
+                fromUserId, toUserId, year, month, startDate, endDate, BudgetSpentCounter.TOTAL_CATEGORY);
+
+        Map<CounterRow, BigDecimal> after = readCounters(year, month, fromUserId, toUserId, "");
+        Set<Long> changedUsers = new HashSet<>();
+        before.forEach((row, spent) -> {
+            BigDecimal corrected = after.get(row);
+            if (corrected == null || corrected.compareTo(spent) != 0) {
+                changedUsers.add(row.userId());
+            }
+        });
+        after.keySet().stream()
+                .filter(row -> !before.containsKey(row))
+                .forEach(row -> changedUsers.add(row.userId()));
+        changedUsers.forEach(userDataVersionService::bump);
+
+        return categoryRows + totalRows + removedRows;
+    }
+
+    private Map<CounterRow, BigDecimal> readCounters(int year, int month, long fromUserId, long toUserId, String lockClause) {
+        Map<CounterRow, BigDecimal> counters = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, category, spent FROM budget_spent_counters " +
+                        "WHERE user_id BETWEEN ? AND ? AND year = ? AND month = ?" + lockClause,
+                rs -> {
+                    counters.put(new CounterRow(rs.getLong("user_id"), rs.getString("category")), rs.getBigDecimal("spent"));
+                },
+                fromUserId, toUserId, year, month);
+        return counters;
+    }
+
+    private void addDelta(Map<CounterKey, BigDecimal> deltas, Expense.PersistedState state, BigDecimal amount) {
+        int year = state.expenseDate().getYear();
+        int month = state.expenseDate().getMonthValue();
+        deltas.merge(new CounterKey(year, month, state.category()), amount, BigDecimal::add);
+        deltas.merge(new CounterKey(year, month, BudgetSpentCounter.TOTAL_CATEGORY), amount, BigDecimal::add);
+    }
+}
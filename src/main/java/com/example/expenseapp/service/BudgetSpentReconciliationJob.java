@@ -0,0 +1,106 @@
+package com.example.expenseapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 預算計數器校正排程
+ * 依支出明細重新計算最近幾個月的計數器，修正繞過 JPA 直接改資料等造成的偏差；
+ * 每個月份依使用者 id 分段、每段獨立交易（只短暫鎖住該段使用者的支出），以資料庫租約避免多節點同時執行
+ */
+@Service
+public class BudgetSpentReconciliationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BudgetSpentReconciliationJob.class);
+
+    private static final String LOCK_NAME = "budget-spent-reconciliation";
+
+    @Autowired
+    private BudgetSpentCounterService budgetSpentCounterService;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Counter reconciledCounter;
+
+    // 含當月在內往回校正的月份數
+    @Value("${app.budget.counters.reconcile-months:3}")
+    private int reconcileMonths;
+
+    @Value("${app.budget.counters.reconcile-lease:30m}")
+    private Duration lease;
+
+    // 每段交易處理的使用者數
+    @Value("${app.budget.counters.reconcile-user-chunk-size:200}")
+    private int userChunkSize;
+
+    public BudgetSpentReconciliationJob(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconciledCounter = Counter.builder("budget_counters.reconciled_rows")
+                .description("校正時寫入或移除的預算計數器列數")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.budget.counters.reconcile-cron:0 45 3 * * *}")
+    public void scheduledReconcile() {
+        YearMonth current = YearMonth.now();
+        reconcile(current.minusMonths(reconcileMonths - 1L), current);
+    }
+
+    /**
+     * 校正 [from, to] 之間每個月份的計數器，回傳影響列數（未取得租約時回傳 -1）
+     */
+    public int reconcile(YearMonth from, YearMonth to) {
+        if (!schedulerLockService.tryAcquire(LOCK_NAME, lease)) {
+            log.debug("Budget counter reconciliation skipped: lease held by another node");
+            return -1;
+        }
+
+        long start = System.currentTimeMillis();
+        int total = 0;
+        try {
+            months:
+            for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+                YearMonth target = month;
+                long afterUserId = 0;
+                Map<Long, String> users;
+                do {
+                    users = budgetSpentCounterService.findUserChunk(afterUserId, userChunkSize);
+                    if (users.isEmpty()) {
+                        break;
+                    }
+                    Map<Long, String> chunk = users;
+                    Integer rows = transactionTemplate.execute(status -> budgetSpentCounterService.reconcileMonth(target, chunk));
+                    total += rows != null ? rows : 0;
+                    afterUserId = Collections.max(users.keySet());
+
+                    // 每段之間延長租約；租約已遺失時停止，剩下的交給目前持有租約的節點
+                    if (!schedulerLockService.renew(LOCK_NAME, lease)) {
+                        log.warn("Budget counter reconciliation stopped at {} (user id {}): lease lost", target, afterUserId);
+                        break months;
+                    }
+                } while (users.size() == userChunkSize);
+            }
+        } finally {
+            schedulerLockService.release(LOCK_NAME);
+        }
+
+        reconciledCounter.increment(total);
+        log.info("Reconciled budget counters {} to {}: {} rows, {} ms", from, to, total, System.currentTimeMillis() - start);
+        return total;
+    }
+}
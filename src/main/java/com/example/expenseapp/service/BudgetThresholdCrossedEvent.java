@@ -0,0 +1,19 @@
+package com.example.expenseapp.service;
+
+import java.math.BigDecimal;
+
+/**
+ * 預算已使用金額往上跨過警示門檻（例如 80%、100%）時發布的事件
+ * budgetType 為 MONTHLY 時 category 為 null
+ */
+public record BudgetThresholdCrossedEvent(
+        String username,
+        Long budgetId,
+        String budgetType,
+        String category,
+        int year,
+        int month,
+        BigDecimal amount,
+        BigDecimal spent,
+        int threshold) {
+}
@@ -0,0 +1,130 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.model.Budget;
+import com.example.expenseapp.model.BudgetSpentCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 預算警示門檻判斷
+ * 在計數器累加後立即比較異動前後的已使用金額，跨過門檻時直接寫入提醒 Email 到 Outbox，
+ * 並發布 {@link BudgetThresholdCrossedEvent}（提交後推送 SSE）；只讀取受影響的預算與計數器列，不需重新加總支出。
+ * 於 flush 期間執行（可能是提交時的最後一次 flush，此時再註冊 BEFORE_COMMIT 監聽已來不及），
+ * 因此提醒信不透過交易事件，而是以同一連線上的 JDBC 寫入，不經過 EntityManager。
+ */
+@Component
+public class BudgetThresholdEvaluator {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Value("${app.budget.alert.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.budget.alert.email-enabled:true}")
+    private boolean emailEnabled;
+
+    // 使用百分比門檻，由小到大
+    @Value("${app.budget.alert.thresholds:80,100}")
+    private List<Integer> thresholds;
+
+    private record BudgetRow(Long id, String budgetType, String category, BigDecimal amount,
+                             String username, String email, String name) {
+    }
+
+    /**
+     * deltas：該月份各計數器的增減（key 為分類，空字串為月度總額）
+     * 分類比對不分大小寫，與計數器、預算資料表的定序一致
+     */
+    public void evaluate(Long userId, int year, int month, Map<String, BigDecimal> monthDeltas) {
+        if (!enabled || thresholds.isEmpty()) {
+            return;
+        }
+        Map<String, BigDecimal> deltas = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        monthDeltas.forEach((category, delta) -> deltas.merge(category, delta, BigDecimal::add));
+        // 只有金額增加才可能往上跨過門檻
+        if (deltas.values().stream().noneMatch(delta -> delta.signum() > 0)) {
+            return;
+        }
+
+        List<BudgetRow> budgets = jdbcTemplate.query(
+                "SELECT b.id, b.budget_type, b.category, b.amount, u.username, u.email, u.name FROM budgets b " +
+                        "JOIN users u ON u.id = b.user_id WHERE b.user_id = ? AND b.year = ? AND b.month = ?",
+                (rs, rowNum) -> new BudgetRow(rs.getLong(1), rs.getString(2), rs.getString(3),
+                        rs.getBigDecimal(4), rs.getString(5), rs.getString(6), rs.getString(7)),
+                userId, year, month);
+        if (budgets.isEmpty()) {
+            return;
+        }
+
+        Map<String, BigDecimal> spentAfter = null;
+        for (BudgetRow budget : budgets) {
+            String key = Budget.BudgetType.MONTHLY.name().equals(budget.budgetType())
+                    ? BudgetSpentCounter.TOTAL_CATEGORY
+                    : budget.category();
+            BigDecimal delta = deltas.get(key);
+            if (delta == null || delta.signum() <= 0) {
+                continue;
+            }
+            if (spentAfter == null) {
+                spentAfter = loadSpent(userId, year, month);
+            }
+            BigDecimal after = spentAfter.getOrDefault(key, BigDecimal.ZERO);
+            BigDecimal before = after.subtract(delta);
+
+            int crossed = highestCrossedThreshold(before, after, budget.amount(), thresholds);
+            if (crossed > 0) {
+                BudgetThresholdCrossedEvent alert = new BudgetThresholdCrossedEvent(
+                        budget.username(), budget.id(), budget.budgetType(), budget.category(),
+                        year, month, budget.amount(), after, crossed);
+                if (emailEnabled && budget.email() != null) {
+                    emailService.sendBudgetAlertEmail(budget.email(),
+                            budget.name() != null ? budget.name() : budget.username(), alert);
+                }
+                eventPublisher.publishEvent(alert);
+            }
+        }
+    }
+
+    /**
+     * 回傳 before → after 之間往上跨過的最高門檻；未跨過任何門檻時回傳 0
+     */
+    static int highestCrossedThreshold(BigDecimal before, BigDecimal after, BigDecimal amount, List<Integer> thresholds) {
+        if (amount.signum() <= 0) {
+            return 0;
+        }
+        int crossed = 0;
+        for (int threshold : thresholds) {
+            BigDecimal limit = amount.multiply(BigDecimal.valueOf(threshold)).movePointLeft(2);
+            if (before.compareTo(limit) < 0 && after.compareTo(limit) >= 0) {
+                crossed = Math.max(crossed, threshold);
+            }
+        }
+        return crossed;
+    }
+
+    private Map<String, BigDecimal> loadSpent(Long userId, int year, int month) {
+        Map<String, BigDecimal> spent = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        jdbcTemplate.query(
+                "SELECT category, spent FROM budget_spent_counters WHERE user_id = ? AND year = ? AND month = ?",
+                rs -> {
+                    spent.put(rs.getString(1), rs.getBigDecimal(2));
+                },
+                userId, year, month);
+        return spent;
+    }
+}
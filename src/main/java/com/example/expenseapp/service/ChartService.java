@@ -124,14 +124,13 @@ public class ChartService {
                 .map(Expense::getAmount)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        // 按分類分組
-        Map<String, List<Expense>> groupedByCategory = expenses.stream()
-                .collect(Collectors.groupingBy(Expense::getCategory));
+        // 按分類 id 分組（同一分類的名稱都相同，取第一筆即可）
+        Map<Integer, List<Expense>> groupedByCategory = expenses.stream()
+                .collect(Collectors.groupingBy(Expense::getCategoryId));
 
-        List<PieChartData> pieData = groupedByCategory.entrySet().stream()
-                .map(entry -> {
-                    String category = entry.getKey();
-                    List<Expense> categoryExpenses = entry.getValue();
+        List<PieChartData> pieData = groupedByCategory.values().stream()
+                .map(categoryExpenses -> {
+                    String category = categoryExpenses.get(0).getCategory();
 
                     BigDecimal categoryTotal = categoryExpenses.stream()
                             .map(Expense::getAmount)
@@ -235,9 +234,9 @@ public class ChartService {
         User user = getCurrentUser();
         List<Expense> expenses = expenseRepository.findByUserAndExpenseDateBetween(user, startDate, endDate);
 
-        // 按分類分組
-        Map<String, List<Expense>> groupedByCategory = expenses.stream()
-                .collect(Collectors.groupingBy(Expense::getCategory));
+        // 按分類 id 分組
+        Map<Integer, List<Expense>> groupedByCategory = expenses.stream()
+                .collect(Collectors.groupingBy(Expense::getCategoryId));
 
         List<String> labels = new ArrayList<>();
         List<BigDecimal> amounts = new ArrayList<>();
@@ -255,8 +254,8 @@ public class ChartService {
                     return sum2.compareTo(sum1);  // 降序
                 })
                 .forEach(entry -> {
-                    String category = entry.getKey();
                     List<Expense> categoryExpenses = entry.getValue();
+                    String category = categoryExpenses.get(0).getCategory();
 
                     BigDecimal categoryTotal = categoryExpenses.stream()
                             .map(Expense::getAmount)
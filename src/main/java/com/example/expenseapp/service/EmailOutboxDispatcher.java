@@ -0,0 +1,163 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.model.EmailOutbox;
+import com.example.expenseapp.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Email Outbox 派送排程
+ * 定期取出到期的待寄信件，整批共用 SMTP 連線寄出；失敗時以指數退避重試
+ * 認領、寄送、回報結果分成三個步驟：SMTP 往返期間不持有資料庫連線與列鎖，
+ * 郵件伺服器變慢時不會佔住連線池
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.email.outbox.initial-backoff-seconds:30}")
+    private long initialBackoffSeconds;
+
+    @Value("${app.email.outbox.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${app.email.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    public EmailOutboxDispatcher(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 實際的待寄積壓：已到期但還沒被認領的 PENDING 信件（每次抓取指標時查詢一次）
+        Gauge.builder("mail.outbox.due", this, dispatcher -> dispatcher.outboxRepository.countDue(LocalDateTime.now()))
+                .description("已到期、等待派送的 Outbox 信件數量")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 持續派送直到沒有滿批的待寄信件
+     */
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval:2000}")
+    public void dispatchPending() {
+        int processed;
+        do {
+            processed = dispatchBatch();
+        } while (processed >= batchSize);
+    }
+
+    /**
+     * 派送一批：短交易認領 → 交易外寄送 → 短交易回報結果
+     */
+    private int dispatchBatch() {
+        String claimToken = UUID.randomUUID().toString();
+        List<EmailOutbox> claimed = transactionTemplate.execute(status -> claimBatch(claimToken));
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<SimpleMailMessage> messages = new ArrayList<>(claimed.size());
+        for (EmailOutbox outbox : claimed) {
+            messages.add(emailService.buildMessage(outbox));
+        }
+
+        Map<Integer, Exception> failures = emailService.deliver(messages);
+
+        transactionTemplate.executeWithoutResult(status -> recordResults(claimed, claimToken, failures));
+
+        if (!failures.isEmpty()) {
+            log.info("Email outbox batch: {} sent, {} failed", claimed.size() - failures.size(), failures.size());
+        }
+        return claimed.size();
+    }
+
+    /**
+     * 上鎖取出到期信件並標記為 SENDING（記下本次認領 Token），租約期間其他節點不會再取到
+     * 重新認領時已達重試上限的信件（每次寄送途中節點都當機）直接標記為 FAILED，不再寄出
+     */
+    private List<EmailOutbox> claimBatch(String claimToken) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> batch = outboxRepository.findDueForDispatch(now, PageRequest.of(0, batchSize));
+        LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds);
+        List<EmailOutbox> claimed = new ArrayList<>(batch.size());
+        for (EmailOutbox outbox : batch) {
+            if (outbox.getAttempts() >= maxAttempts) {
+                outbox.markAsAbandoned("Delivery did not report a result within the lease");
+                log.warn("Email outbox {} abandoned after {} attempts without a result", outbox.getId(), outbox.getAttempts());
+            } else {
+                outbox.markAsSending(leaseUntil, claimToken);
+                claimed.add(outbox);
+            }
+        }
+        outboxRepository.saveAll(batch);
+        return claimed;
+    }
+
+    /**
+     * 依寄送結果更新狀態；只更新仍持有本次認領 Token 的信件，
+     * 租約到期後被其他節點重新認領（或已有結果）的信件不覆寫
+     */
+    private void recordResults(List<EmailOutbox> claimed, String claimToken, Map<Integer, Exception> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> sentIds = new ArrayList<>(claimed.size());
+        for (int i = 0; i < claimed.size(); i++) {
+            EmailOutbox outbox = claimed.get(i);
+            Exception failure = failures.get(i);
+            if (failure == null) {
+                sentIds.add(outbox.getId());
+                continue;
+            }
+            // 嘗試次數已在認領時計入
+            EmailOutbox.OutboxStatus status = outbox.getAttempts() >= maxAttempts
+                    ? EmailOutbox.OutboxStatus.FAILED
+                    : EmailOutbox.OutboxStatus.PENDING;
+            outboxRepository.markFailed(outbox.getId(), claimToken, status.name(),
+                    now.plusSeconds(backoffSeconds(outbox.getAttempts() - 1)), truncate(failure.getMessage()));
+            log.warn("Email outbox {} delivery failed (attempt {}): {}",
+                    outbox.getId(), outbox.getAttempts(), failure.getMessage());
+        }
+        if (!sentIds.isEmpty()) {
+            outboxRepository.markSent(sentIds, claimToken, now);
+        }
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > 500 ? error.substring(0, 500) : error;
+    }
+
+    /**
+     * 指數退避：initial * 2^attempts，並以最大值封頂
+     */
+    private long backoffSeconds(int previousAttempts) {
+        long backoff = initialBackoffSeconds << Math.min(previousAttempts, 20);
+        return Math.min(backoff, maxBackoffSeconds);
+    }
+}
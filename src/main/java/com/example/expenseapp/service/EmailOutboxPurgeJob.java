@@ -0,0 +1,95 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 已寄出 Email 清除排程
+ * 依 (status, sent_at) 索引分段批量刪除寄出超過保留期的信件，每段獨立交易；以資料庫租約避免多節點同時執行
+ * FAILED 的信件保留，供人工檢查
+ */
+@Service
+public class EmailOutboxPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxPurgeJob.class);
+
+    private static final String LOCK_NAME = "email-outbox-purge";
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Counter purgedCounter;
+
+    @Value("${app.email.outbox.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.email.outbox.purge.retention:7d}")
+    private Duration retention;
+
+    @Value("${app.email.outbox.purge.lease:10m}")
+    private Duration lease;
+
+    public EmailOutboxPurgeJob(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.purgedCounter = Counter.builder("email_outbox.purged")
+                .description("已清除的已寄出 Email 數量")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.email.outbox.purge.cron:0 30 3 * * *}")
+    public void scheduledPurge() {
+        purgeSentEmails();
+    }
+
+    /**
+     * 清除寄出超過保留期的信件，回傳刪除筆數（未取得租約時回傳 -1）
+     */
+    public int purgeSentEmails() {
+        if (!schedulerLockService.tryAcquire(LOCK_NAME, lease)) {
+            log.debug("Email outbox purge skipped: lease held by another node");
+            return -1;
+        }
+
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int total = 0;
+        int chunks = 0;
+        try {
+            Integer deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> outboxRepository.deleteSentChunk(cutoff, chunkSize));
+                deleted = deleted != null ? deleted : 0;
+                total += deleted;
+                chunks++;
+                // 每段之間延長租約；租約已遺失時停止，剩下的交給目前持有租約的節點
+                if (deleted == chunkSize && !schedulerLockService.renew(LOCK_NAME, lease)) {
+                    log.warn("Email outbox purge stopped after {} chunk(s): lease lost", chunks);
+                    break;
+                }
+            } while (deleted == chunkSize);
+        } finally {
+            schedulerLockService.release(LOCK_NAME);
+        }
+
+        purgedCounter.increment(total);
+        log.info("Purged {} sent emails in {} chunk(s), {} ms (cutoff={})",
+                total, chunks, System.currentTimeMillis() - start, cutoff);
+        return total;
+    }
+}
@@ -1,17 +1,44 @@
 package com.example.expenseapp.service;
 
+import com.example.expenseapp.model.EmailOutbox;
+import com.example.expenseapp.repository.EmailOutboxRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class EmailService {
 
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // app.email.send-mode=pooled 時才會註冊
+    @Autowired(required = false)
+    private PooledMailSender pooledMailSender;
+
     @Value("${app.email.from}")
     private String fromEmail;
 
@@ -36,7 +63,7 @@ public class EmailService {
                 name, verificationLink
         );
 
-        sendEmail(to, subject, text);
+        queueEmail(to, subject, text);
     }
 
     public void sendPasswordResetEmail(String to, String name, String token) {
@@ -53,16 +80,115 @@ public class EmailService {
                 name, resetLink
         );
 
-        sendEmail(to, subject, text);
+        queueEmail(to, subject, text);
+    }
+
+    public void sendBudgetAlertEmail(String to, String name, BudgetThresholdCrossedEvent alert) {
+        String budgetName = alert.category() != null
+                ? String.format("%d 年 %d 月「%s」分類預算", alert.year(), alert.month(), alert.category())
+                : String.format("%d 年 %d 月月度預算", alert.year(), alert.month());
+
+        String subject = String.format("預算提醒：%s已使用 %d%%", budgetName, alert.threshold());
+        String text = String.format(
+                "親愛的 %s，\n\n" +
+                        "您的%s已達 %d%%。\n\n" +
+                        "預算金額：%s\n" +
+                        "已使用金額：%s\n\n" +
+                        "請留意後續支出。\n\n" +
+                        "Expense App 團隊",
+                name, budgetName, alert.threshold(),
+                alert.amount().toPlainString(), alert.spent().toPlainString()
+        );
+
+        queueWithJdbc(to, subject, text);
     }
 
-    private void sendEmail(String to, String subject, String text) {
+    /**
+     * 批次寄出 Email
+     * 預設整批共用同一條 SMTP 連線；pooled 模式下分散到連線池中已認證的多條連線並行寄出
+     * 回傳寄送失敗的信件（以在 messages 中的索引為鍵）與原因，未出現在結果中的信件皆已成功寄出
+     */
+    public Map<Integer, Exception> deliver(List<SimpleMailMessage> messages) {
+        if (pooledMailSender != null) {
+            return pooledMailSender.send(messages);
+        }
+
+        Map<Integer, Exception> failures = new HashMap<>();
+        if (messages.isEmpty()) {
+            return failures;
+        }
+
+        try {
+            // 先轉成 MimeMessage 再寄出：MimeMessage 以物件身分比較，
+            // 內容相同的兩封信（例如重複的預算提醒）在失敗清單中不會被合併成一筆
+            MimeMessage[] mimeMessages = new MimeMessage[messages.size()];
+            Map<MimeMessage, Integer> indexes = new IdentityHashMap<>();
+            for (int i = 0; i < messages.size(); i++) {
+                mimeMessages[i] = toMimeMessage(messages.get(i));
+                indexes.put(mimeMessages[i], i);
+            }
+
+            try {
+                mailSender.send(mimeMessages);
+            } catch (MailSendException e) {
+                e.getFailedMessages().forEach((message, exception) -> {
+                    Integer index = indexes.get(message);
+                    if (index != null) {
+                        failures.put(index, exception);
+                    }
+                });
+                // 無法對應到個別信件時（例如連線失敗），視為整批失敗
+                if (failures.isEmpty()) {
+                    markAllFailed(messages, failures, e);
+                }
+            }
+        } catch (MailException e) {
+            markAllFailed(messages, failures, e);
+        } catch (MessagingException e) {
+            markAllFailed(messages, failures, new MailPreparationException("建立信件失敗：" + e.getMessage(), e));
+        }
+        return failures;
+    }
+
+    /**
+     * 建立要寄出的信件
+     */
+    public SimpleMailMessage buildMessage(EmailOutbox outbox) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setFrom(fromEmail);
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(text);
+        message.setTo(outbox.getRecipient());
+        message.setSubject(outbox.getSubject());
+        message.setText(outbox.getBody());
+        return message;
+    }
+
+    private MimeMessage toMimeMessage(SimpleMailMessage message) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        message.copyTo(new MimeMailMessage(new MimeMessageHelper(mimeMessage, false, "UTF-8")));
+        return mimeMessage;
+    }
+
+    private void markAllFailed(List<SimpleMailMessage> messages, Map<Integer, Exception> failures, Exception failure) {
+        for (int i = 0; i < messages.size(); i++) {
+            failures.put(i, failure);
+        }
+    }
+
+    /**
+     * 寫入 Outbox，與呼叫端在同一個交易中提交，實際寄送由 EmailOutboxDispatcher 負責
+     */
+    private void queueEmail(String to, String subject, String text) {
+        outboxRepository.save(new EmailOutbox(to, subject, text));
+    }
 
-        mailSender.send(message);
+    /**
+     * 以 JDBC 直接寫入 Outbox（不經過 EntityManager），可在 JPA flush 期間（實體回呼中）呼叫；
+     * 仍使用呼叫端交易的連線，與支出一起提交或回滾
+     */
+    private void queueWithJdbc(String to, String subject, String text) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO email_outbox (recipient, subject, body, status, attempts, next_attempt_at, created_at) " +
+                        "VALUES (?, ?, ?, ?, 0, ?, ?)",
+                to, subject, text, EmailOutbox.OutboxStatus.PENDING.name(), now, now);
     }
-}
\ No newline at end of file
+}
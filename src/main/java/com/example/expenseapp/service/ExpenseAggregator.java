@@ -0,0 +1,225 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.model.Expense;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 支出彙總器
+ * 筆數未達門檻時在呼叫端執行緒單執行緒彙總；
+ * 超過門檻時以 fork-join 切分資料，在專用且有上限的執行緒池中平行彙總後合併。
+ * 不使用 common pool，避免與 Tomcat 請求執行緒互相競爭。
+ */
+@Component
+public class ExpenseAggregator {
+
+    // 每個子任務至少處理的筆數，避免切得太細反而增加合併成本
+    private static final int MIN_LEAF_SIZE = 1024;
+
+    private final int parallelThreshold;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    public ExpenseAggregator(
+            @Value("${app.statistics.parallel.threshold:50000}") int parallelThreshold,
+            @Value("${app.statistics.parallel.pool-size:0}") int poolSize) {
+        this.parallelThreshold = parallelThreshold;
+        this.parallelism = poolSize > 0
+                ? poolSize
+                : Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        this.pool = new ForkJoinPool(
+                parallelism,
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("statistics-aggregator-" + thread.getPoolIndex());
+                    return thread;
+                },
+                null,
+                false,
+                parallelism,
+                parallelism,  // 最大執行緒數與平行度相同，不額外補償
+                1,
+                null,
+                60,
+                TimeUnit.SECONDS
+        );
+    }
+
+    /**
+     * 彙總支出（自動依筆數選擇單執行緒或平行模式）
+     */
+    public Accumulator aggregate(List<Expense> expenses) {
+        if (!isParallel(expenses.size())) {
+            return aggregateSequential(expenses);
+        }
+        int leafSize = Math.max(MIN_LEAF_SIZE, expenses.size() / (parallelism * 4));
+        return pool.invoke(new AggregateTask(expenses, 0, expenses.size(), leafSize));
+    }
+
+    /**
+     * 單執行緒彙總
+     */
+    public Accumulator aggregateSequential(List<Expense> expenses) {
+        Accumulator accumulator = new Accumulator();
+        for (Expense expense : expenses) {
+            accumulator.add(expense);
+        }
+        return accumulator;
+    }
+
+    /**
+     * 是否會使用平行模式
+     */
+    public boolean isParallel(int size) {
+        return parallelism > 1 && size >= parallelThreshold;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * fork-join 子任務：超過葉節點大小就對半切分
+     */
+    private static class AggregateTask extends RecursiveTask<Accumulator> {
+        private final List<Expense> expenses;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        AggregateTask(List<Expense> expenses, int from, int to, int leafSize) {
+            this.expenses = expenses;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (to - from <= leafSize) {
+                Accumulator accumulator = new Accumulator();
+                for (int i = from; i < to; i++) {
+                    accumulator.add(expenses.get(i));
+                }
+                return accumulator;
+            }
+
+            int mid = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(expenses, from, mid, leafSize);
+            AggregateTask right = new AggregateTask(expenses, mid, to, leafSize);
+            left.fork();
+            Accumulator rightResult = right.compute();
+            return left.join().combine(rightResult);
+        }
+    }
+
+    /**
+     * 可合併的彙總結果（總額、筆數、最大/最小值與各分類小計）
+     * 非執行緒安全，每個子任務各自持有一份，最後再合併
+     */
+    public static class Accumulator {
+        private BigDecimal totalAmount = BigDecimal.ZERO;
+        private long count;
+        private BigDecimal maxAmount;
+        private BigDecimal minAmount;
+        // 以分類 id（int）分組，名稱只在輸出時對照一次
+        private final Map<Integer, CategoryTotal> categories = new HashMap<>();
+        private final Map<Integer, String> categoryNames = new HashMap<>();
+
+        public void add(Expense expense) {
+            BigDecimal amount = expense.getAmount();
+            totalAmount = totalAmount.add(amount);
+            count++;
+            if (maxAmount == null || amount.compareTo(maxAmount) > 0) {
+                maxAmount = amount;
+            }
+            if (minAmount == null || amount.compareTo(minAmount) < 0) {
+                minAmount = amount;
+            }
+            Integer categoryId = expense.getCategoryId();
+            CategoryTotal total = categories.get(categoryId);
+            if (total == null) {
+                total = new CategoryTotal();
+                categories.put(categoryId, total);
+                categoryNames.put(categoryId, expense.getCategory());
+            }
+            total.add(amount, 1);
+        }
+
+        public Accumulator combine(Accumulator other) {
+            totalAmount = totalAmount.add(other.totalAmount);
+            count += other.count;
+            if (other.maxAmount != null && (maxAmount == null || other.maxAmount.compareTo(maxAmount) > 0)) {
+                maxAmount = other.maxAmount;
+            }
+            if (other.minAmount != null && (minAmount == null || other.minAmount.compareTo(minAmount) < 0)) {
+                minAmount = other.minAmount;
+            }
+            other.categories.forEach((categoryId, total) ->
+                    categories.computeIfAbsent(categoryId, key -> new CategoryTotal()).add(total.amount, total.count));
+            other.categoryNames.forEach(categoryNames::putIfAbsent);
+            return this;
+        }
+
+        public BigDecimal getTotalAmount() {
+            return totalAmount;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public BigDecimal getMaxAmount() {
+            return maxAmount != null ? maxAmount : BigDecimal.ZERO;
+        }
+
+        public BigDecimal getMinAmount() {
+            return minAmount != null ? minAmount : BigDecimal.ZERO;
+        }
+
+        /**
+         * 各分類小計（key 為分類名稱）
+         */
+        public Map<String, CategoryTotal> getCategories() {
+            Map<String, CategoryTotal> byName = new HashMap<>(categories.size() * 2);
+            categories.forEach((categoryId, total) -> byName.put(categoryNames.get(categoryId), total));
+            return byName;
+        }
+    }
+
+    /**
+     * 單一分類的小計
+     */
+    public static class CategoryTotal {
+        private BigDecimal amount = BigDecimal.ZERO;
+        private long count;
+
+        void add(BigDecimal amount, long count) {
+            this.amount = this.amount.add(amount);
+            this.count += count;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.model.Expense;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * 在寫入前把分類名稱換成 category_id，載入後再由 id 還原名稱，寫入後更新分類目錄的使用範圍
+ */
+@Component
+public class ExpenseCategoryListener {
+
+    // Lazy：實體監聽器在 EntityManagerFactory 建立時就會被實例化
+    @Autowired
+    @Lazy
+    private ExpenseCategoryService expenseCategoryService;
+
+    @PrePersist
+    @PreUpdate
+    public void resolveCategoryId(Expense expense) {
+        if (expense.getCategoryId() == null && expense.getCategory() != null && !expense.getCategory().isBlank()) {
+            expense.setCategoryId(expenseCategoryService.resolveId(expense.getUser().getId(), expense.getCategory()));
+        }
+    }
+
+    @PostLoad
+    public void resolveCategoryName(Expense expense) {
+        Integer categoryId = expense.getCategoryId();
+        expense.setCategory(expenseCategoryService.nameOf(categoryId));
+        expense.setCategoryId(categoryId);
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void recordUsage(Expense expense) {
+        expenseCategoryService.recordUsage(expense.getUser().getId(), expense.getCategoryId(), expense.getExpenseDate());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.expenseapp.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分類名稱與 category_id 的對照，以及每位使用者的分類目錄
+ * 名稱與 id 兩個方向都快取在記憶體中（分類數量遠少於支出筆數，建立後不會變更），載入大量支出時不必逐筆查字典。
+ * 分類目錄（最早/最晚使用日期）存在資料表中，查詢日期範圍內的分類時先以目錄篩選，不必掃描支出表。
+ * 可能在 flush 期間被呼叫，因此只使用同一連線上的 JDBC 查詢。
+ */
+@Service
+public class ExpenseCategoryService {
+
+    private final ConcurrentHashMap<CategoryKey, Integer> idsByName = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> namesById = new ConcurrentHashMap<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private record CategoryKey(Long userId, String name) {
+    }
+
+    /**
+     * 取得分類 id，字典中還沒有時新增
+     */
+    public Integer resolveId(Long userId, String name) {
+        CategoryKey key = new CategoryKey(userId, name);
+        Integer cached = idsByName.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        jdbcTemplate.update("INSERT IGNORE INTO expense_categories (user_id, name) VALUES (?, ?)", userId, name);
+        Integer id = jdbcTemplate.queryForObject(
+                "SELECT id FROM expense_categories WHERE user_id = ? AND name = ?", Integer.class, userId, name);
+
+        // 在交易中新增的分類等提交後才放進快取，避免交易回滾後快取指向不存在的 id
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    idsByName.put(key, id);
+                }
+            });
+        } else {
+            idsByName.put(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * 查詢分類 id（不新增），查無此分類時回傳 empty
+     */
+    public Optional<Integer> findId(Long userId, String name) {
+        CategoryKey key = new CategoryKey(userId, name);
+        Integer cached = idsByName.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        List<Integer> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM expense_categories WHERE user_id = ? AND name = ?", Integer.class, userId, name);
+        if (ids.isEmpty()) {
+            return Optional.empty();
+        }
+        idsByName.put(key, ids.get(0));
+        return Optional.of(ids.get(0));
+    }
+
+    /**
+     * 由 id 取得分類名稱（名稱建立後不會再變更，可以永久快取）
+     * 同一分類的所有支出共用快取中的同一個字串實例。
+     * 由 @PostLoad 呼叫；串流查詢進行中同一連線不能再發出查詢，需先以 {@link #preloadNames} 載入。
+     */
+    public String nameOf(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        return namesById.computeIfAbsent(id, key -> jdbcTemplate.queryForObject(
+                "SELECT name FROM expense_categories WHERE id = ?", String.class, key));
+    }
+
+    /**
+     * 把使用者的整份分類字典放進名稱快取，在開啟串流查詢之前呼叫，
+     * 讓逐列載入時的 {@link #nameOf} 都命中快取（同一交易的快照中，串流讀到的分類一定都在這份字典裡）
+     */
+    public void preloadNames(Long userId) {
+        jdbcTemplate.query("SELECT id, name FROM expense_categories WHERE user_id = ?",
+                rs -> {
+                    namesById.putIfAbsent(rs.getInt("id"), rs.getString("name"));
+                },
+                userId);
+    }
+
+    /**
+     * 以支出日期放寬分類的使用範圍
+     */
+    public void recordUsage(Long userId, Integer categoryId, LocalDate expenseDate) {
+        if (categoryId == null || expenseDate == null) {
+            return;
+        }
+        Date date = Date.valueOf(expenseDate);
+        jdbcTemplate.update(
+                "UPDATE expense_categories SET first_used_date = LEAST(COALESCE(first_used_date, ?), ?), " +
+                        "last_used_date = GREATEST(COALESCE(last_used_date, ?), ?) " +
+                        "WHERE id = ? AND (first_used_date IS NULL OR first_used_date > ? OR last_used_date < ?)",
+                date, date, date, date, categoryId, date, date);
+    }
+
+    /**
+     * [startDate, endDate] 內有支出的分類名稱（依名稱排序）
+     * 先以目錄的使用範圍篩掉不可能的分類，剩下的每個分類以 idx_user_category_date 做一次 EXISTS 探查，
+     * 結果與支出明細完全一致（範圍內沒有支出、或支出已全部刪除的分類不會列出）。
+     * 每次都查資料庫，不保留節點內的快取，其他節點的寫入也會立即反映。
+     */
+    public List<String> findCategoriesUsedBetween(Long userId, LocalDate startDate, LocalDate endDate) {
+        Date start = Date.valueOf(startDate);
+        Date end = Date.valueOf(endDate);
+        return jdbcTemplate.queryForList(
+                "SELECT c.name FROM expense_categories c " +
+                        "WHERE c.user_id = ? AND c.first_used_date <= ? AND c.last_used_date >= ? " +
+                        "AND EXISTS (SELECT 1 FROM expenses e WHERE e.user_id = c.user_id AND e.category_id = c.id " +
+                        "AND e.expense_date BETWEEN ? AND ?) " +
+                        "ORDER BY c.name",
+                String.class, userId, end, start, start, end);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.expenseapp.service;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * 支出新增、修改或刪除後發布的事件
+ * affectedDates 包含異動前後的支出日期（修改日期時兩者都算）
+ */
+public record ExpenseChangedEvent(String username, Set<LocalDate> affectedDates) {
+}
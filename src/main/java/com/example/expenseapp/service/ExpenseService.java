@@ -1,19 +1,36 @@
 package com.example.expenseapp.service;
 
+import com.example.expenseapp.dto.ExpenseQueryRequest;
+import com.example.expenseapp.dto.ExpenseQueryResponse;
 import com.example.expenseapp.exception.ResourceNotFoundException;
 import com.example.expenseapp.model.Expense;
 import com.example.expenseapp.model.User;
 import com.example.expenseapp.repository.ExpenseRepository;
+import com.example.expenseapp.repository.ExpenseSpecifications;
 import com.example.expenseapp.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ExpenseService {
@@ -24,6 +41,21 @@ public class ExpenseService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDataVersionService userDataVersionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ExpenseCategoryService expenseCategoryService;
+
+    @Autowired
+    private ExpenseTitleSearchService expenseTitleSearchService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
@@ -48,41 +80,58 @@ public class ExpenseService {
                 .orElseThrow(() -> new ResourceNotFoundException("找不到 ID 為 " + id + " 的支出紀錄"));
     }
 
+    @Transactional
     public Expense createExpense(Expense expense) {
         User user = getCurrentUser();
         expense.setUser(user);
-        return expenseRepository.save(expense);
+        Expense saved = expenseRepository.save(expense);
+        userDataVersionService.bump(user.getId());
+        eventPublisher.publishEvent(new ExpenseChangedEvent(user.getUsername(), Set.of(saved.getExpenseDate())));
+        return saved;
     }
 
+    @Transactional
     public Expense updateExpense(Long id, Expense expenseDetails) {
         User user = getCurrentUser();
         Expense expense = expenseRepository.findByIdAndUser(id, user)
                 .orElseThrow(() -> new ResourceNotFoundException("找不到 ID 為 " + id + " 的支出紀錄"));
+        LocalDate previousDate = expense.getExpenseDate();
 
         expense.setTitle(expenseDetails.getTitle());
         expense.setAmount(expenseDetails.getAmount());
         expense.setCategory(expenseDetails.getCategory());
         expense.setExpenseDate(expenseDetails.getExpenseDate());
 
-        return expenseRepository.save(expense);
+        Expense saved = expenseRepository.save(expense);
+        userDataVersionService.bump(user.getId());
+        eventPublisher.publishEvent(new ExpenseChangedEvent(user.getUsername(),
+                previousDate.equals(saved.getExpenseDate()) ? Set.of(previousDate) : Set.of(previousDate, saved.getExpenseDate())));
+        return saved;
     }
 
+    @Transactional
     public void deleteExpense(Long id) {
         User user = getCurrentUser();
         Expense expense = expenseRepository.findByIdAndUser(id, user)
                 .orElseThrow(() -> new ResourceNotFoundException("找不到 ID 為 " + id + " 的支出紀錄"));
         expenseRepository.delete(expense);
+        userDataVersionService.bump(user.getId());
+        eventPublisher.publishEvent(new ExpenseChangedEvent(user.getUsername(), Set.of(expense.getExpenseDate())));
     }
 
     public List<Expense> getExpensesByCategory(String category) {
         User user = getCurrentUser();
-        return expenseRepository.findByUserAndCategory(user, category);
+        return expenseCategoryService.findId(user.getId(), category)
+                .map(categoryId -> expenseRepository.findByUserAndCategoryId(user, categoryId))
+                .orElseGet(List::of);
     }
 
     // 分頁查詢指定分類的支出
     public Page<Expense> getExpensesByCategory(String category, Pageable pageable) {
         User user = getCurrentUser();
-        return expenseRepository.findByUserAndCategory(user, category, pageable);
+        return expenseCategoryService.findId(user.getId(), category)
+                .map(categoryId -> expenseRepository.findByUserAndCategoryId(user, categoryId, pageable))
+                .orElseGet(() -> Page.empty(pageable));
     }
 
     public List<Expense> getExpensesByDateRange(LocalDate startDate, LocalDate endDate) {
@@ -98,11 +147,138 @@ public class ExpenseService {
 
     public List<Expense> getExpensesByCategoryAndDateRange(String category, LocalDate startDate, LocalDate endDate) {
         User user = getCurrentUser();
-        return expenseRepository.findByUserAndCategoryAndDateRange(user, category, startDate, endDate);
+        return expenseCategoryService.findId(user.getId(), category)
+                .map(categoryId -> expenseRepository.findByUserAndCategoryAndDateRange(user, categoryId, startDate, endDate))
+                .orElseGet(List::of);
+    }
+
+    /**
+     * 組合查詢：所有條件組成單一 Specification 查詢，以 (排序欄位, id) 做 keyset 分頁
+     * 條件不合法的游標會丟出 IllegalArgumentException
+     */
+    public ExpenseQueryResponse queryExpenses(ExpenseQueryRequest request) {
+        User user = getCurrentUser();
+        Specification<Expense> spec = ExpenseSpecifications.ownedBy(user);
+
+        if (request.getCategories() != null && !request.getCategories().isEmpty()) {
+            List<Integer> categoryIds = request.getCategories().stream()
+                    .distinct()
+                    .map(category -> expenseCategoryService.findId(user.getId(), category))
+                    .flatMap(Optional::stream)
+                    .toList();
+            // 指定的分類都不存在時不必查詢
+            if (categoryIds.isEmpty()) {
+                return new ExpenseQueryResponse(List.of(), null);
+            }
+            spec = spec.and(ExpenseSpecifications.categoryIdIn(categoryIds));
+        }
+        if (request.getStartDate() != null) {
+            spec = spec.and(ExpenseSpecifications.expenseDateFrom(request.getStartDate()));
+        }
+        if (request.getEndDate() != null) {
+            spec = spec.and(ExpenseSpecifications.expenseDateTo(request.getEndDate()));
+        }
+        if (request.getMinAmount() != null) {
+            spec = spec.and(ExpenseSpecifications.amountAtLeast(request.getMinAmount()));
+        }
+        if (request.getMaxAmount() != null) {
+            spec = spec.and(ExpenseSpecifications.amountAtMost(request.getMaxAmount()));
+        }
+        if (StringUtils.hasText(request.getTitlePrefix())) {
+            spec = spec.and(ExpenseSpecifications.titleStartsWith(request.getTitlePrefix()));
+        }
+
+        String sortBy = request.getSortBy();
+        boolean descending = !"asc".equalsIgnoreCase(request.getSortDirection());
+        if (StringUtils.hasText(request.getCursor())) {
+            spec = spec.and(decodeCursor(request.getCursor(), sortBy, descending));
+        }
+
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
+        int size = request.getSize();
+        // 多取一筆判斷是否還有下一頁，不需要另外執行 COUNT
+        List<Expense> rows = expenseRepository.findBy(spec, query -> query.sortBy(sort).limit(size + 1).all());
+
+        if (rows.size() <= size) {
+            return new ExpenseQueryResponse(rows, null);
+        }
+        List<Expense> page = rows.subList(0, size);
+        return new ExpenseQueryResponse(page, encodeCursor(page.get(size - 1), sortBy));
+    }
+
+    // 游標格式：排序欄位:值:id，以 Base64 URL 編碼
+    private String encodeCursor(Expense last, String sortBy) {
+        Object value = "amount".equals(sortBy) ? last.getAmount().toPlainString() : last.getExpenseDate();
+        String raw = sortBy + ":" + value + ":" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Specification<Expense> decodeCursor(String cursor, String sortBy, boolean descending) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("無效的分頁游標", e);
+        }
+        if (parts.length != 3 || !parts[0].equals(sortBy)) {
+            throw new IllegalArgumentException("無效的分頁游標");
+        }
+
+        try {
+            Long lastId = Long.parseLong(parts[2]);
+            if ("amount".equals(sortBy)) {
+                return ExpenseSpecifications.after("amount", new BigDecimal(parts[1]), lastId, descending);
+            }
+            return ExpenseSpecifications.after("expenseDate", LocalDate.parse(parts[1]), lastId, descending);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("無效的分頁游標", e);
+        }
+    }
+
+    // 標題全文搜尋（記憶體倒排索引）
+    public List<Expense> searchByTitle(String query, int limit) {
+        User user = getCurrentUser();
+        return expenseTitleSearchService.search(user.getId(), query, limit);
     }
 
     public List<String> getCategoriesByDateRange(LocalDate startDate, LocalDate endDate) {
         User user = getCurrentUser();
-        return expenseRepository.findDistinctCategoriesByUserAndDateRange(user, startDate, endDate);
+        return expenseCategoryService.findCategoriesUsedBetween(user.getId(), startDate, endDate);
+    }
+
+    /**
+     * 逐筆讀取日期範圍內的支出並交給 consumer（NDJSON 串流輸出用）
+     * 每筆處理完就從 Persistence Context 移除，記憶體用量不隨筆數增加；
+     * 串流開啟後同一連線不能再查詢，分類名稱需在開啟前預先載入
+     */
+    @Transactional(readOnly = true)
+    public void streamExpensesByDateRange(LocalDate startDate, LocalDate endDate, Consumer<Expense> consumer) {
+        User user = getCurrentUser();
+        expenseCategoryService.preloadNames(user.getId());
+        try (Stream<Expense> expenses = expenseRepository.streamByUserAndDateRange(user, startDate, endDate)) {
+            forEachDetached(expenses, consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamExpensesByCategoryAndDateRange(String category, LocalDate startDate, LocalDate endDate,
+                                                     Consumer<Expense> consumer) {
+        User user = getCurrentUser();
+        Optional<Integer> categoryId = expenseCategoryService.findId(user.getId(), category);
+        if (categoryId.isEmpty()) {
+            return;
+        }
+        expenseCategoryService.preloadNames(user.getId());
+        try (Stream<Expense> expenses = expenseRepository.streamByUserAndCategoryAndDateRange(user, categoryId.get(), startDate, endDate)) {
+            forEachDetached(expenses, consumer);
+        }
+    }
+
+    private void forEachDetached(Stream<Expense> expenses, Consumer<Expense> consumer) {
+        expenses.forEach(expense -> {
+            consumer.accept(expense);
+            entityManager.detach(expense);
+        });
     }
-}
\ No newline at end of file
+}
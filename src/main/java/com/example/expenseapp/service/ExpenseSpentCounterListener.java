@@ -0,0 +1,62 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.model.Expense;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * 支出寫入時同步更新預算計數器
+ * 回呼在 flush 期間、同一個交易與連線中執行，支出寫入回滾時計數器也一併回滾。
+ * 不論是經由 ExpenseService 還是直接透過 Repository 寫入都會觸發。
+ */
+@Component
+public class ExpenseSpentCounterListener {
+
+    // Lazy：實體監聽器在 EntityManagerFactory 建立時就會被實例化
+    @Autowired
+    @Lazy
+    private BudgetSpentCounterService budgetSpentCounterService;
+
+    @Autowired
+    @Lazy
+    private ExpenseCategoryService expenseCategoryService;
+
+    @PostLoad
+    public void onLoad(Expense expense) {
+        expense.setPersistedState(snapshot(expense));
+    }
+
+    @PostPersist
+    public void onPersist(Expense expense) {
+        Expense.PersistedState current = snapshot(expense);
+        budgetSpentCounterService.recordChange(expense.getUser().getId(), null, current);
+        expense.setPersistedState(current);
+    }
+
+    @PostUpdate
+    public void onUpdate(Expense expense) {
+        Expense.PersistedState current = snapshot(expense);
+        budgetSpentCounterService.recordChange(expense.getUser().getId(), expense.getPersistedState(), current);
+        expense.setPersistedState(current);
+    }
+
+    @PostRemove
+    public void onRemove(Expense expense) {
+        Expense.PersistedState previous = expense.getPersistedState() != null ? expense.getPersistedState() : snapshot(expense);
+        budgetSpentCounterService.recordChange(expense.getUser().getId(), previous, null);
+        expense.setPersistedState(null);
+    }
+
+    // 分類以字典中的名稱為準（輸入的大小寫可能與字典不同，計數器與預算都以字典名稱比對）
+    private Expense.PersistedState snapshot(Expense expense) {
+        String category = expense.getCategoryId() != null
+                ? expenseCategoryService.nameOf(expense.getCategoryId())
+                : expense.getCategory();
+        return new Expense.PersistedState(expense.getAmount(), category, expense.getExpenseDate());
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.model.Expense;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * 支出寫入後增量更新標題搜尋索引（實際套用延到交易提交後）
+ */
+@Component
+public class ExpenseTitleIndexListener {
+
+    // Lazy：實體監聽器在 EntityManagerFactory 建立時就會被實例化
+    @Autowired
+    @Lazy
+    private ExpenseTitleSearchService expenseTitleSearchService;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Expense expense) {
+        expenseTitleSearchService.onSaved(expense.getUser().getId(), expense.getId(),
+                expense.getTitle(), expense.getExpenseDate());
+    }
+
+    @PostRemove
+    public void onRemove(Expense expense) {
+        expenseTitleSearchService.onDeleted(expense.getUser().getId(), expense.getId());
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.model.Expense;
+import com.example.expenseapp.repository.ExpenseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 支出標題全文搜尋
+ * 每位使用者一份記憶體中的倒排索引，第一次搜尋時才由資料庫建立，之後由實體監聽器在提交後增量更新。
+ * 以 LRU 限制同時保留索引的使用者數量，被淘汰的使用者下次搜尋時重新建立。
+ * 索引只存在本節點記憶體中；每次寫入支出都在同一交易中遞增資料庫中的使用者版本號（expense_write_versions），
+ * 搜尋前比對索引對應的版本，落後時（其他節點的寫入、或本節點提交順序交錯）先由資料庫重建，不會回傳過期結果。
+ */
+@Service
+public class ExpenseTitleSearchService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.expense.title-search.max-users:1000}")
+    private int maxUsers;
+
+    // 依存取順序淘汰最久未搜尋的使用者索引
+    private final Map<Long, VersionedIndex> indexes = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, VersionedIndex> eldest) {
+                    return size() > maxUsers;
+                }
+            });
+
+    private Counter buildCounter;
+    private TransactionTemplate snapshotTemplate;
+
+    /**
+     * 索引與其內容對應的寫入版本，兩者都以此物件為鎖保護
+     */
+    private static final class VersionedIndex {
+        private final TitleInvertedIndex index = new TitleInvertedIndex();
+        private long version;
+    }
+
+    @PostConstruct
+    void init() {
+        // 建立索引時版本號與支出在同一個快照中讀取（REPEATABLE READ 的一致性讀取）
+        snapshotTemplate = new TransactionTemplate(transactionManager);
+        snapshotTemplate.setReadOnly(true);
+
+        buildCounter = Counter.builder("expense.title_index.builds")
+                .description("由資料庫建立使用者標題索引的次數")
+                .register(meterRegistry);
+        Gauge.builder("expense.title_index.users", indexes, Map::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 搜尋標題包含 query 的支出，依日期由新到舊排序
+     */
+    public List<Expense> search(Long userId, String query, int limit) {
+        VersionedIndex entry = indexFor(userId);
+        List<Long> ids;
+        synchronized (entry) {
+            ids = entry.index.search(query, limit);
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Integer> order = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            order.put(ids.get(i), i);
+        }
+        // 索引可能稍微落後（例如使用者已被刪除），以資料庫內容與擁有者為準
+        return expenseRepository.findAllById(ids).stream()
+                .filter(expense -> userId.equals(expense.getUser().getId()))
+                .sorted(Comparator.comparing(expense -> order.get(expense.getId())))
+                .toList();
+    }
+
+    /**
+     * 需在寫入支出的交易中呼叫（可能在 flush 期間）
+     */
+    public void onSaved(Long userId, Long expenseId, String title, LocalDate expenseDate) {
+        afterCommit(userId, bumpVersion(userId), index -> index.put(expenseId, title, expenseDate));
+    }
+
+    public void onDeleted(Long userId, Long expenseId) {
+        afterCommit(userId, bumpVersion(userId), index -> index.remove(expenseId));
+    }
+
+    /**
+     * 丟棄使用者的索引，下次搜尋時重建（用於不經過實體的批次寫入）
+     * 同時遞增版本號，其他節點的索引也會在下次搜尋時重建
+     */
+    public void invalidate(Collection<Long> userIds) {
+        userIds.forEach(this::bumpVersion);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userIds.forEach(indexes::remove);
+                }
+            });
+        } else {
+            userIds.forEach(indexes::remove);
+        }
+    }
+
+    /**
+     * 在目前交易中遞增使用者的寫入版本並回傳新值（版本列在提交前保持鎖定，讀到的就是本交易寫入的值）
+     */
+    private long bumpVersion(Long userId) {
+        jdbcTemplate.update("INSERT INTO expense_write_versions (user_id, version) VALUES (?, 1) " +
+                "ON DUPLICATE KEY UPDATE version = version + 1", userId);
+        return currentVersion(userId);
+    }
+
+    private long currentVersion(Long userId) {
+        List<Long> versions = jdbcTemplate.queryForList(
+                "SELECT version FROM expense_write_versions WHERE user_id = ?", Long.class, userId);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+
+    /**
+     * 尚未建立索引的使用者直接略過，下次搜尋時會由資料庫讀到最新內容
+     * 只有索引正好停在前一個版本時才推進版本號；中間漏掉的寫入由下次搜尋時的版本比對發現並重建
+     */
+    private void afterCommit(Long userId, long version, Consumer<TitleInvertedIndex> update) {
+        Runnable apply = () -> {
+            VersionedIndex entry = indexes.get(userId);
+            if (entry != null) {
+                synchronized (entry) {
+                    update.accept(entry.index);
+                    if (entry.version == version - 1) {
+                        entry.version = version;
+                    }
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * 取得與資料庫版本一致的索引，沒有或已落後時重建
+     * 新索引在放入快取前就先鎖住，建立期間的搜尋與提交後的異動都會等建立完成再執行，不會遺漏
+     */
+    private VersionedIndex indexFor(Long userId) {
+        VersionedIndex existing = indexes.get(userId);
+        if (existing != null) {
+            long current = currentVersion(userId);
+            synchronized (existing) {
+                if (existing.version >= current) {
+                    return existing;
+                }
+            }
+        }
+
+        VersionedIndex entry = new VersionedIndex();
+        synchronized (entry) {
+            synchronized (indexes) {
+                VersionedIndex latest = indexes.get(userId);
+                // 其他執行緒已經換上新的索引
+                if (latest != null && latest != existing) {
+                    return latest;
+                }
+                indexes.put(userId, entry);
+            }
+
+            try {
+                snapshotTemplate.executeWithoutResult(status -> {
+                    entry.version = currentVersion(userId);
+                    jdbcTemplate.query("SELECT id, title, expense_date FROM expenses WHERE user_id = ?",
+                            rs -> {
+                                entry.index.put(rs.getLong("id"), rs.getString("title"),
+                                        rs.getObject("expense_date", LocalDate.class));
+                            },
+                            userId);
+                });
+                buildCounter.increment();
+            } catch (RuntimeException e) {
+                indexes.remove(userId, entry);
+                throw e;
+            }
+        }
+        return entry;
+    }
+}
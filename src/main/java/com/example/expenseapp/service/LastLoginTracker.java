@@ -0,0 +1,129 @@
+package com.example.expenseapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 最後登入時間緩衝
+ * 登入時只記錄在記憶體中，由背景排程定期以單一批次 UPDATE 寫回資料庫；
+ * 同一使用者在間隔內多次登入只會寫入最新的一次。應用程式正常關閉時會先寫回緩衝內容。
+ */
+@Service
+public class LastLoginTracker implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(LastLoginTracker.class);
+
+    // 單一 UPDATE 最多合併的使用者數，避免 SQL 過長
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    private final ConcurrentHashMap<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void recordLogin(Long userId, LocalDateTime loginAt) {
+        pending.merge(userId, loginAt, LastLoginTracker::latest);
+        // 已停止（關閉流程中仍在處理的請求）時不再等待排程，直接寫回
+        if (!running) {
+            flush();
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.last-login.flush-interval:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // 逐筆移出，避免與同時進行的 recordLogin 互相覆蓋
+        List<Map.Entry<Long, LocalDateTime>> drained = new ArrayList<>();
+        for (Long userId : pending.keySet()) {
+            LocalDateTime loginAt = pending.remove(userId);
+            if (loginAt != null) {
+                drained.add(Map.entry(userId, loginAt));
+            }
+        }
+
+        for (int from = 0; from < drained.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Map.Entry<Long, LocalDateTime>> chunk =
+                    drained.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, drained.size()));
+            try {
+                int updated = writeChunk(chunk);
+                log.debug("Flushed last login time for {} users ({} rows updated)", chunk.size(), updated);
+            } catch (RuntimeException e) {
+                // 寫入失敗時直接放回緩衝，下次排程再試（不可經由 recordLogin，關閉後會再次呼叫 flush 而無限遞迴）
+                chunk.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), LastLoginTracker::latest));
+                log.warn("Failed to flush last login time: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static LocalDateTime latest(LocalDateTime current, LocalDateTime next) {
+        return next.isAfter(current) ? next : current;
+    }
+
+    /**
+     * UPDATE users SET last_login_at = CASE WHEN id = ? AND ... THEN ? ... END WHERE id IN (...)
+     * 較舊的時間不會蓋掉資料庫中較新的值（多節點同時寫回時）
+     */
+    private int writeChunk(List<Map.Entry<Long, LocalDateTime>> chunk) {
+        StringBuilder sql = new StringBuilder("UPDATE users SET last_login_at = CASE");
+        List<Object> args = new ArrayList<>(chunk.size() * 4);
+        for (Map.Entry<Long, LocalDateTime> entry : chunk) {
+            Timestamp loginAt = Timestamp.valueOf(entry.getValue());
+            sql.append(" WHEN id = ? AND (last_login_at IS NULL OR last_login_at < ?) THEN ?");
+            args.add(entry.getKey());
+            args.add(loginAt);
+            args.add(loginAt);
+        }
+        sql.append(" ELSE last_login_at END WHERE id IN (");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            args.add(chunk.get(i).getKey());
+        }
+        sql.append(")");
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        // 關閉前寫回尚未寫入的登入時間
+        flush();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // 比 Web 伺服器（WebServerStartStopLifecycle，DEFAULT_PHASE - 2048）更晚停止（數值越小越晚停止），
+    // 不能與其同一個 phase，否則兩者的停止順序不固定，關閉期間的登入可能在最後一次寫回之後才進來
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.expenseapp.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 預算與統計的即時推播（Server-Sent Events）
+ * 每位使用者可有多條連線（多個分頁或裝置）；閒置連線只佔用一個非同步請求，不佔用執行緒。
+ * 支出異動提交後，若影響當月資料，重新計算當月預算與總覽並推送給該使用者的所有連線；
+ * 預算跨過警示門檻時另外推送 budget-alert 事件。
+ * 寫入客戶端 socket 一律交給有上限的寄送執行緒池，排程與寫入請求的執行緒只負責排入佇列；
+ * 每條連線的待送事件超過上限（客戶端太慢）時直接關閉該連線。
+ * SseEventBuilder 在 build 時會改變自身內容，不能跨連線共用，因此佇列中存的是產生事件的 Supplier，
+ * 每條連線送出時各自建立一份（payload 只計算一次）。
+ */
+@Service
+public class LiveUpdateService {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveUpdateService.class);
+
+    // 寄送執行緒池的佇列上限（每條連線同時最多只有一個寄送工作，實際長度不超過連線數）
+    private static final int SEND_QUEUE_CAPACITY = 20_000;
+
+    // 推播計算的佇列上限（同一使用者同時最多只有一個待計算的推播，實際長度不超過有待推播的使用者數）
+    private static final int PUSH_QUEUE_CAPACITY = 1_000;
+
+    private final Map<String, Queue<Subscriber>> emitters = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    // 推播內容的計算不佔用寫入請求的執行緒；佇列有上限，滿了就放棄這次推播（下次異動時會推送最新狀態）
+    private final ThreadPoolExecutor pushExecutor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(PUSH_QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "live-update-push");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    // 已排入、尚未開始計算的推播；同一使用者的多次異動合併成一次（計算時讀的就是最新狀態）
+    private final Set<String> pendingPushes = ConcurrentHashMap.newKeySet();
+
+    // 實際寫入客戶端 socket 的執行緒池
+    private final ThreadPoolExecutor sendExecutor;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Value("${app.live.emitter-timeout:30m}")
+    private Duration emitterTimeout;
+
+    @Value("${app.live.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${app.live.max-pending-events:32}")
+    private int maxPendingEvents;
+
+    public LiveUpdateService(MeterRegistry meterRegistry, @Value("${app.live.send-threads:4}") int sendThreads) {
+        this.sendExecutor = new ThreadPoolExecutor(sendThreads, sendThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(SEND_QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "live-update-send");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Gauge.builder("live_updates.subscribers", subscriberCount, AtomicInteger::get)
+                .description("目前的 SSE 訂閱連線數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 建立訂閱；超過每位使用者的連線上限時關閉最舊的連線
+     */
+    public SseEmitter subscribe(String username) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(username, emitter);
+
+        // 加入與移除都在 compute 內完成，不會加進一個剛被移除的佇列
+        List<Subscriber> evicted = new ArrayList<>();
+        emitters.compute(username, (key, current) -> {
+            Queue<Subscriber> userEmitters = current != null ? current : new ConcurrentLinkedQueue<>();
+            userEmitters.add(subscriber);
+            while (userEmitters.size() > maxConnectionsPerUser) {
+                evicted.add(userEmitters.poll());
+            }
+            return userEmitters;
+        });
+        subscriberCount.addAndGet(1 - evicted.size());
+        evicted.forEach(oldest -> oldest.emitter.complete());
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> remove(subscriber));
+
+        enqueue(subscriber, () -> SseEmitter.event().name("connected").data("ok"));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        if (!emitters.containsKey(event.username())) {
+            return;
+        }
+        YearMonth currentMonth = YearMonth.now();
+        boolean affectsCurrentMonth = event.affectedDates().stream()
+                .anyMatch(date -> YearMonth.from(date).equals(currentMonth));
+        if (!affectsCurrentMonth) {
+            return;
+        }
+
+        String username = event.username();
+        if (!pendingPushes.add(username)) {
+            return;
+        }
+        // 以該使用者身分查詢（異動可能來自排程，而非該使用者的請求）
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(username, null, List.of()));
+        Runnable push = () -> {
+            // 開始計算前先移除，計算期間的新異動會再排入一次
+            pendingPushes.remove(username);
+            pushDashboard(username);
+        };
+        try {
+            pushExecutor.execute(new DelegatingSecurityContextRunnable(push, context));
+        } catch (RejectedExecutionException e) {
+            pendingPushes.remove(username);
+            log.debug("Live update push queue full, skipping push to {}", username);
+        }
+    }
+
+    /**
+     * 預算跨過警示門檻時推送 budget-alert 事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBudgetThresholdCrossed(BudgetThresholdCrossedEvent event) {
+        broadcast(event.username(), () -> SseEmitter.event()
+                .name("budget-alert")
+                .data(event, MediaType.APPLICATION_JSON));
+    }
+
+    private void pushDashboard(String username) {
+        try {
+            LocalDate today = LocalDate.now();
+            Object budgets = budgetService.getCurrentMonthBudgets();
+            Object summary = statisticsService.getSummaryStatistics(today.withDayOfMonth(1), today);
+            broadcast(username, () -> SseEmitter.event().name("budgets").data(budgets, MediaType.APPLICATION_JSON));
+            broadcast(username, () -> SseEmitter.event().name("summary").data(summary, MediaType.APPLICATION_JSON));
+        } catch (RuntimeException e) {
+            log.warn("Failed to push live update to {}: {}", username, e.getMessage());
+        }
+    }
+
+    /**
+     * 定期送出註解行，避免代理伺服器關閉閒置連線，也藉此清掉已斷線或跟不上的客戶端
+     */
+    @Scheduled(fixedDelayString = "${app.live.heartbeat-interval:25000}")
+    public void heartbeat() {
+        emitters.values().forEach(userEmitters -> {
+            for (Subscriber subscriber : userEmitters) {
+                enqueue(subscriber, () -> SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pushExecutor.shutdown();
+        sendExecutor.shutdown();
+        emitters.values().forEach(userEmitters -> userEmitters.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private void broadcast(String username, Supplier<SseEmitter.SseEventBuilder> event) {
+        Queue<Subscriber> userEmitters = emitters.get(username);
+        if (userEmitters == null) {
+            return;
+        }
+        for (Subscriber subscriber : userEmitters) {
+            enqueue(subscriber, event);
+        }
+    }
+
+    /**
+     * 排入連線的待送佇列並交給寄送執行緒池；待送事件過多或執行緒池已滿時關閉該連線
+     */
+    private void enqueue(Subscriber subscriber, Supplier<SseEmitter.SseEventBuilder> event) {
+        if (subscriber.pendingCount.incrementAndGet() > maxPendingEvents) {
+            log.debug("Closing slow live update subscriber of {}: {} events pending",
+                    subscriber.username, subscriber.pendingCount.get());
+            drop(subscriber);
+            return;
+        }
+        subscriber.pending.add(event);
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sendExecutor.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false);
+            drop(subscriber);
+        }
+    }
+
+    /**
+     * 依序送出連線的待送事件（同一條連線同時只有一個執行緒在寫入，事件順序不變）
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            Supplier<SseEmitter.SseEventBuilder> event;
+            while ((event = subscriber.pending.poll()) != null) {
+                subscriber.pendingCount.decrementAndGet();
+                try {
+                    subscriber.emitter.send(event.get());
+                } catch (IOException | IllegalStateException e) {
+                    // 客戶端已斷線
+                    remove(subscriber);
+                    subscriber.pending.clear();
+                    return;
+                } catch (RuntimeException e) {
+                    // 其他錯誤（例如序列化失敗）也不能讓這條連線停止送出，關閉連線讓客戶端重新訂閱
+                    log.warn("Failed to send live update to {}: {}", subscriber.username, e.getMessage());
+                    drop(subscriber);
+                    subscriber.pending.clear();
+                    return;
+                }
+            }
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // 結束前又有新事件排入時繼續送
+        if (!subscriber.pending.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (remove(subscriber)) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private boolean remove(Subscriber subscriber) {
+        boolean[] removed = new boolean[1];
+        emitters.computeIfPresent(subscriber.username, (key, userEmitters) -> {
+            removed[0] = userEmitters.remove(subscriber);
+            return userEmitters.isEmpty() ? null : userEmitters;
+        });
+        if (removed[0]) {
+            subscriberCount.decrementAndGet();
+        }
+        return removed[0];
+    }
+
+    /**
+     * 單一 SSE 連線與其待送事件
+     */
+    private static final class Subscriber {
+
+        private final String username;
+        private final SseEmitter emitter;
+        private final Queue<Supplier<SseEmitter.SseEventBuilder>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(String username, SseEmitter emitter) {
+            this.username = username;
+            this.emitter = emitter;
+        }
+    }
+}
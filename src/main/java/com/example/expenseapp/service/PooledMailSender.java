@@ -0,0 +1,224 @@
+package com.example.expenseapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 連線池化的 SMTP 寄件器
+ * 維持少量已完成 STARTTLS 與認證的 Transport，批次寄信時分散到多條連線並行送出，
+ * 避免每封信都重新建立連線與交握。閒置過久的連線會在取用時重新建立。
+ */
+public class PooledMailSender {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledMailSender.class);
+
+    private final JavaMailSenderImpl mailSender;
+    private final int poolSize;
+    private final long maxIdleMillis;
+    private final BlockingQueue<PooledTransport> idleTransports;
+    private final AtomicInteger openTransports = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ExecutorService workers;
+
+    private final Timer sendTimer;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter connectCounter;
+
+    public PooledMailSender(JavaMailSenderImpl mailSender, int poolSize, long maxIdleMillis, MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.poolSize = poolSize;
+        this.maxIdleMillis = maxIdleMillis;
+        this.idleTransports = new ArrayBlockingQueue<>(poolSize);
+        this.workers = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "smtp-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.sendTimer = Timer.builder("mail.send.latency")
+                .description("單封 Email 經由連線池寄出的耗時")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("mail.send.sent").register(meterRegistry);
+        this.failedCounter = Counter.builder("mail.send.failed").register(meterRegistry);
+        this.connectCounter = Counter.builder("mail.send.connections.opened").register(meterRegistry);
+        Gauge.builder("mail.send.in_flight", inFlight, AtomicInteger::get)
+                .description("已交給連線池、尚未寄出完成的 Email 數量（Outbox 待寄數量見 mail.outbox.due）")
+                .register(meterRegistry);
+        Gauge.builder("mail.send.connections.open", openTransports, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 批次寄信：平均分配到最多 poolSize 條連線並行送出
+     * 回傳寄送失敗的信件（以在 messages 中的索引為鍵）與原因
+     */
+    public Map<Integer, Exception> send(List<SimpleMailMessage> messages) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        if (messages.isEmpty()) {
+            return failures;
+        }
+
+        inFlight.addAndGet(messages.size());
+        int lanes = Math.min(poolSize, messages.size());
+        List<CompletableFuture<Map<Integer, Exception>>> futures = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            int firstIndex = lane;
+            futures.add(CompletableFuture.supplyAsync(() -> sendChunk(messages, firstIndex, lanes), workers));
+        }
+
+        for (CompletableFuture<Map<Integer, Exception>> future : futures) {
+            failures.putAll(future.join());
+        }
+        return failures;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getOpenConnections() {
+        return openTransports.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+        PooledTransport pooled;
+        while ((pooled = idleTransports.poll()) != null) {
+            close(pooled);
+        }
+    }
+
+    /**
+     * 寄出 messages 中自 firstIndex 起、每隔 stride 封的信件
+     */
+    private Map<Integer, Exception> sendChunk(List<SimpleMailMessage> messages, int firstIndex, int stride) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        PooledTransport pooled = null;
+        MailSendException connectFailure = null;
+        try {
+            for (int index = firstIndex; index < messages.size(); index += stride) {
+                SimpleMailMessage message = messages.get(index);
+                long start = System.nanoTime();
+                try {
+                    // 無法建立連線時，這條通道剩下的信件直接視為失敗，交由 Outbox 重試
+                    if (connectFailure != null) {
+                        failures.put(index, connectFailure);
+                        failedCounter.increment();
+                        continue;
+                    }
+                    if (pooled == null) {
+                        pooled = borrow();
+                    }
+                    MimeMessage mimeMessage = toMimeMessage(message);
+                    pooled.transport.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+                    sentCounter.increment();
+                } catch (MessagingException e) {
+                    MailSendException failure = new MailSendException("寄信失敗：" + e.getMessage(), e);
+                    failures.put(index, failure);
+                    failedCounter.increment();
+                    if (pooled == null) {
+                        connectFailure = failure;
+                    } else if (!pooled.transport.isConnected()) {
+                        // 連線已失效，丟棄後由下一封重新建立
+                        close(pooled);
+                        pooled = null;
+                    }
+                } finally {
+                    sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    inFlight.decrementAndGet();
+                }
+            }
+        } finally {
+            if (pooled != null) {
+                release(pooled);
+            }
+        }
+        return failures;
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        PooledTransport pooled;
+        while ((pooled = idleTransports.poll()) != null) {
+            boolean stale = System.currentTimeMillis() - pooled.lastUsed > maxIdleMillis;
+            if (!stale && pooled.transport.isConnected()) {
+                return pooled;
+            }
+            close(pooled);
+        }
+        return open();
+    }
+
+    private void release(PooledTransport pooled) {
+        pooled.lastUsed = System.currentTimeMillis();
+        if (!idleTransports.offer(pooled)) {
+            close(pooled);
+        }
+    }
+
+    private PooledTransport open() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(
+                StringUtils.hasLength(mailSender.getProtocol()) ? mailSender.getProtocol() : "smtp");
+        String username = StringUtils.hasLength(mailSender.getUsername()) ? mailSender.getUsername() : null;
+        String password = StringUtils.hasLength(mailSender.getPassword()) ? mailSender.getPassword() : null;
+        transport.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+        openTransports.incrementAndGet();
+        connectCounter.increment();
+        return new PooledTransport(transport);
+    }
+
+    private void close(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP transport: {}", e.getMessage());
+        } finally {
+            openTransports.decrementAndGet();
+        }
+    }
+
+    private MimeMessage toMimeMessage(SimpleMailMessage message) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, false, "UTF-8");
+        message.copyTo(new MimeMailMessage(helper));
+        mimeMessage.saveChanges();
+        return mimeMessage;
+    }
+
+    private static class PooledTransport {
+        private final Transport transport;
+        private long lastUsed = System.currentTimeMillis();
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.model.Expense;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 固定支出產生排程
+ * 依範本 id 以 keyset 分頁取出當月到期、尚未產生的範本，每批在同一交易中：
+ * 鎖定範本列並標記已產生的月份、以 JDBC 批次新增支出、依使用者累加預算計數器。
+ * 以 last_generated_period 保證同一月份只產生一次（重跑或多節點同時執行都不會重複），
+ * 排程停擺而漏掉的月份，會從 last_generated_period 的下個月補產生到當月；
+ * 並以資料庫租約避免多節點同時掃描。
+ */
+@Service
+public class RecurringExpenseMaterializer {
+
+    private static final Logger log = LoggerFactory.getLogger(RecurringExpenseMaterializer.class);
+
+    private static final String LOCK_NAME = "recurring-expense-materializer";
+
+    // 當月扣款日已到，或上個月以前還有漏掉的月份（從未產生過的範本只產生當月）
+    // FOR UPDATE OF r：租約過期而有兩個節點同時執行時，後到的會等待並以最新資料重新判斷，不會重複產生；
+    // 只鎖範本列，不鎖 JOIN 到的 users 列
+    private static final String SELECT_DUE_SQL =
+            "SELECT r.id, r.user_id, u.username, r.title, r.amount, r.category, r.day_of_month, r.start_date, r.end_date, " +
+                    "r.last_generated_period " +
+                    "FROM recurring_expenses r JOIN users u ON u.id = r.user_id " +
+                    "WHERE r.id > ? AND r.active = TRUE AND r.start_date <= ? " +
+                    "AND (r.last_generated_period IS NULL OR r.last_generated_period < ?) " +
+                    "AND (r.day_of_month <= ? OR r.last_generated_period < ?) " +
+                    "ORDER BY r.id LIMIT ? FOR UPDATE OF r";
+
+    private static final String INSERT_EXPENSE_SQL =
+            "INSERT INTO expenses (user_id, title, amount, category_id, expense_date) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private BudgetSpentCounterService budgetSpentCounterService;
+
+    @Autowired
+    private ExpenseCategoryService expenseCategoryService;
+
+    @Autowired
+    private ExpenseTitleSearchService expenseTitleSearchService;
+
+    @Autowired
+    private UserDataVersionService userDataVersionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Counter generatedCounter;
+
+    @Value("${app.recurring.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.recurring.lease:30m}")
+    private Duration lease;
+
+    private record DueTemplate(long id, long userId, String username, String title, BigDecimal amount,
+                               String category, int dayOfMonth, LocalDate startDate, LocalDate endDate,
+                               LocalDate lastGeneratedPeriod) {
+    }
+
+    private record GeneratedExpense(DueTemplate template, Integer categoryId, LocalDate expenseDate) {
+    }
+
+    private record BatchResult(int fetched, long lastId, int generated) {
+    }
+
+    public RecurringExpenseMaterializer(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.generatedCounter = Counter.builder("recurring_expenses.generated")
+                .description("由固定支出範本產生的支出筆數")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.recurring.cron:0 10 0 * * *}")
+    public void scheduledMaterialize() {
+        materialize(LocalDate.now());
+    }
+
+    /**
+     * 產生 today 所在月份中扣款日已到的支出，回傳產生筆數（未取得租約時回傳 -1）
+     */
+    public int materialize(LocalDate today) {
+        if (!schedulerLockService.tryAcquire(LOCK_NAME, lease)) {
+            log.debug("Recurring expense materialization skipped: lease held by another node");
+            return -1;
+        }
+
+        long start = System.currentTimeMillis();
+        LocalDate period = today.withDayOfMonth(1);
+        // 月底當天，扣款日大於當月天數的範本（例如 31 日）也一併到期
+        int dueDay = today.getDayOfMonth() == today.lengthOfMonth() ? 31 : today.getDayOfMonth();
+        int total = 0;
+        int batches = 0;
+        try {
+            long lastId = 0;
+            BatchResult result;
+            do {
+                long afterId = lastId;
+                result = transactionTemplate.execute(status -> materializeBatch(afterId, today, period, dueDay));
+                if (result == null) {
+                    break;
+                }
+                total += result.generated();
+                lastId = result.lastId();
+                batches++;
+            } while (result.fetched() == batchSize);
+        } finally {
+            schedulerLockService.release(LOCK_NAME);
+        }
+
+        generatedCounter.increment(total);
+        log.info("Generated {} recurring expenses for {} in {} batch(es), {} ms",
+                total, period, batches, System.currentTimeMillis() - start);
+        return total;
+    }
+
+    private BatchResult materializeBatch(long afterId, LocalDate today, LocalDate period, int dueDay) {
+        List<DueTemplate> templates = jdbcTemplate.query(SELECT_DUE_SQL,
+                (rs, rowNum) -> new DueTemplate(
+                        rs.getLong("id"),
+                        rs.getLong("user_id"),
+                        rs.getString("username"),
+                        rs.getString("title"),
+                        rs.getBigDecimal("amount"),
+                        rs.getString("category"),
+                        rs.getInt("day_of_month"),
+                        rs.getObject("start_date", LocalDate.class),
+                        rs.getObject("end_date", LocalDate.class),
+                        rs.getObject("last_generated_period", LocalDate.class)),
+                afterId, today, period, dueDay, period.minusMonths(1), batchSize);
+        if (templates.isEmpty()) {
+            return new BatchResult(0, afterId, 0);
+        }
+
+        List<Object[]> claims = new ArrayList<>(templates.size());
+        List<GeneratedExpense> generated = new ArrayList<>(templates.size());
+        List<Object[]> rows = new ArrayList<>(templates.size());
+        for (DueTemplate template : templates) {
+            List<LocalDate> periods = duePeriods(template, period, dueDay);
+            // 標記已處理到的月份（包含因開始/結束日期而不產生的月份，避免每天重複掃到）
+            claims.add(new Object[]{periods.get(periods.size() - 1), template.id()});
+            for (LocalDate duePeriod : periods) {
+                LocalDate expenseDate = duePeriod.withDayOfMonth(Math.min(template.dayOfMonth(), duePeriod.lengthOfMonth()));
+                boolean inRange = !expenseDate.isBefore(template.startDate())
+                        && (template.endDate() == null || !expenseDate.isAfter(template.endDate()));
+                if (!inRange) {
+                    continue;
+                }
+                Integer categoryId = expenseCategoryService.resolveId(template.userId(), template.category());
+                generated.add(new GeneratedExpense(template, categoryId, expenseDate));
+                rows.add(new Object[]{template.userId(), template.title(), template.amount(), categoryId,
+                        Date.valueOf(expenseDate)});
+            }
+        }
+        jdbcTemplate.batchUpdate("UPDATE recurring_expenses SET last_generated_period = ? WHERE id = ?", claims);
+
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_EXPENSE_SQL, rows);
+            afterInsert(generated);
+        }
+
+        return new BatchResult(templates.size(), templates.get(templates.size() - 1).id(), rows.size());
+    }
+
+    /**
+     * 範本這次要處理的月份：從 last_generated_period 的下個月到當月（當月扣款日未到則只到上個月），
+     * 從未產生過的範本只處理當月
+     */
+    private static List<LocalDate> duePeriods(DueTemplate template, LocalDate period, int dueDay) {
+        boolean currentDue = template.dayOfMonth() <= dueDay;
+        if (template.lastGeneratedPeriod() == null) {
+            return List.of(period);
+        }
+        List<LocalDate> periods = new ArrayList<>();
+        for (LocalDate next = template.lastGeneratedPeriod().plusMonths(1); next.isBefore(period); next = next.plusMonths(1)) {
+            periods.add(next);
+        }
+        if (currentDue) {
+            periods.add(period);
+        }
+        return periods;
+    }
+
+    /**
+     * 直接以 JDBC 寫入不會觸發實體監聽器，需自行更新預算計數器、分類目錄、標題索引、資料版本與即時推播
+     */
+    private void afterInsert(List<GeneratedExpense> generated) {
+        Map<Long, List<Expense.PersistedState>> addedByUser = new LinkedHashMap<>();
+        Map<String, Set<LocalDate>> datesByUser = new HashMap<>();
+        for (GeneratedExpense expense : generated) {
+            DueTemplate template = expense.template();
+            addedByUser.computeIfAbsent(template.userId(), userId -> new ArrayList<>())
+                    .add(new Expense.PersistedState(template.amount(),
+                            expenseCategoryService.nameOf(expense.categoryId()), expense.expenseDate()));
+            expenseCategoryService.recordUsage(template.userId(), expense.categoryId(), expense.expenseDate());
+            datesByUser.computeIfAbsent(template.username(), username -> new HashSet<>()).add(expense.expenseDate());
+        }
+        // 每位使用者只累加一次計數器（同月份、同分類的差額先合併）
+        addedByUser.forEach(budgetSpentCounterService::recordAdditions);
+        // 批次新增拿不到各筆 id，直接丟棄這些使用者的標題索引，下次搜尋時重建
+        expenseTitleSearchService.invalidate(generated.stream().map(expense -> expense.template().userId()).distinct().toList());
+        addedByUser.keySet().forEach(userDataVersionService::bump);
+        datesByUser.forEach((username, dates) -> {
+            eventPublisher.publishEvent(new ExpenseChangedEvent(username, dates));
+        });
+    }
+}
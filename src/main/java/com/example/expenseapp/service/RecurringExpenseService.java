@@ -0,0 +1,79 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.exception.ResourceNotFoundException;
+import com.example.expenseapp.model.RecurringExpense;
+import com.example.expenseapp.model.User;
+import com.example.expenseapp.repository.RecurringExpenseRepository;
+import com.example.expenseapp.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class RecurringExpenseService {
+
+    @Autowired
+    private RecurringExpenseRepository recurringExpenseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("找不到目前使用者"));
+    }
+
+    public List<RecurringExpense> getRecurringExpenses() {
+        User user = getCurrentUser();
+        return recurringExpenseRepository.findByUserOrderByDayOfMonthAscIdAsc(user);
+    }
+
+    public RecurringExpense createRecurringExpense(RecurringExpense recurringExpense) {
+        User user = getCurrentUser();
+        validateDates(recurringExpense);
+        recurringExpense.setId(null);
+        recurringExpense.setUser(user);
+        recurringExpense.setLastGeneratedPeriod(null);
+        if (recurringExpense.getActive() == null) {
+            recurringExpense.setActive(true);
+        }
+        return recurringExpenseRepository.save(recurringExpense);
+    }
+
+    public RecurringExpense updateRecurringExpense(Long id, RecurringExpense details) {
+        User user = getCurrentUser();
+        RecurringExpense recurringExpense = recurringExpenseRepository.findByIdAndUser(id, user)
+                .orElseThrow(() -> new ResourceNotFoundException("找不到 ID 為 " + id + " 的固定支出"));
+        validateDates(details);
+
+        // 已產生的月份不變，修改只影響之後產生的支出
+        recurringExpense.setTitle(details.getTitle());
+        recurringExpense.setAmount(details.getAmount());
+        recurringExpense.setCategory(details.getCategory());
+        recurringExpense.setDayOfMonth(details.getDayOfMonth());
+        recurringExpense.setStartDate(details.getStartDate());
+        recurringExpense.setEndDate(details.getEndDate());
+        if (details.getActive() != null) {
+            recurringExpense.setActive(details.getActive());
+        }
+        return recurringExpenseRepository.save(recurringExpense);
+    }
+
+    public void deleteRecurringExpense(Long id) {
+        User user = getCurrentUser();
+        RecurringExpense recurringExpense = recurringExpenseRepository.findByIdAndUser(id, user)
+                .orElseThrow(() -> new ResourceNotFoundException("找不到 ID 為 " + id + " 的固定支出"));
+        recurringExpenseRepository.delete(recurringExpense);
+    }
+
+    private void validateDates(RecurringExpense recurringExpense) {
+        if (recurringExpense.getEndDate() != null && recurringExpense.getEndDate().isBefore(recurringExpense.getStartDate())) {
+            throw new IllegalArgumentException("結束日期不能早於開始日期");
+        }
+    }
+}
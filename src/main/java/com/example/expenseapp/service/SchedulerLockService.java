@@ -0,0 +1,61 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.repository.SchedulerLockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 跨節點排程租約
+ * 取得租約後在 lease 期間內獨佔執行；節點當機時租約到期即可由其他節點接手
+ */
+@Service
+public class SchedulerLockService {
+
+    // 每個應用程式實例的唯一識別
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName()
+            + "/" + UUID.randomUUID().toString().substring(0, 8);
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    /**
+     * 嘗試取得租約
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean tryAcquire(String name, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(lease);
+        if (schedulerLockRepository.insertIfAbsent(name, until, now, owner) == 1) {
+            return true;
+        }
+        return schedulerLockRepository.acquireIfExpired(name, until, now, owner) == 1;
+    }
+
+    /**
+     * 延長租約（長時間分段執行的排程在每段之間呼叫），回傳 false 代表租約已過期或被其他節點接手
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean renew(String name, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        return schedulerLockRepository.renew(name, now.plus(lease), now, owner) == 1;
+    }
+
+    /**
+     * 釋放租約
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(String name) {
+        schedulerLockRepository.release(name, LocalDateTime.now(), owner);
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+}
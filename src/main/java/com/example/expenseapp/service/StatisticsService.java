@@ -29,6 +29,9 @@ public class StatisticsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ExpenseAggregator expenseAggregator;
+
     /**
      * 取得當前登入的使用者
      */
@@ -56,11 +59,11 @@ public class StatisticsService {
             );
         }
 
-        BigDecimal totalAmount = expenses.stream()
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // 單次走訪完成彙總（資料量大時自動切換為平行模式）
+        ExpenseAggregator.Accumulator result = expenseAggregator.aggregate(expenses);
 
-        long count = expenses.size();
+        BigDecimal totalAmount = result.getTotalAmount();
+        long count = result.getCount();
 
         BigDecimal averageAmount = totalAmount.divide(
                 BigDecimal.valueOf(count),
@@ -68,15 +71,8 @@ public class StatisticsService {
                 RoundingMode.HALF_UP
         );
 
-        BigDecimal maxAmount = expenses.stream()
-                .map(Expense::getAmount)
-                .max(BigDecimal::compareTo)
-                .orElse(BigDecimal.ZERO);
-
-        BigDecimal minAmount = expenses.stream()
-                .map(Expense::getAmount)
-                .min(BigDecimal::compareTo)
-                .orElse(BigDecimal.ZERO);
+        BigDecimal maxAmount = result.getMaxAmount();
+        BigDecimal minAmount = result.getMinAmount();
 
         return new SummaryStatistics(totalAmount, count, averageAmount, maxAmount, minAmount);
     }
@@ -92,25 +88,17 @@ public class StatisticsService {
             return new ArrayList<>();
         }
 
-        // 計算總金額（用於計算百分比）
-        BigDecimal totalAmount = expenses.stream()
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // 單次走訪完成彙總（資料量大時自動切換為平行模式）
+        ExpenseAggregator.Accumulator result = expenseAggregator.aggregate(expenses);
 
-        // 按分類分組統計
-        Map<String, List<Expense>> groupedByCategory = expenses.stream()
-                .collect(Collectors.groupingBy(Expense::getCategory));
+        // 總金額（用於計算百分比）
+        BigDecimal totalAmount = result.getTotalAmount();
 
-        List<CategoryStatistics> statistics = groupedByCategory.entrySet().stream()
+        List<CategoryStatistics> statistics = result.getCategories().entrySet().stream()
                 .map(entry -> {
                     String category = entry.getKey();
-                    List<Expense> categoryExpenses = entry.getValue();
-
-                    BigDecimal categoryTotal = categoryExpenses.stream()
-                            .map(Expense::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    Long count = (long) categoryExpenses.size();
+                    BigDecimal categoryTotal = entry.getValue().getAmount();
+                    Long count = entry.getValue().getCount();
 
                     // 計算百分比
                     BigDecimal percentage = totalAmount.compareTo(BigDecimal.ZERO) > 0
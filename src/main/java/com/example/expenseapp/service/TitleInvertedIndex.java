@@ -0,0 +1,178 @@
+package com.example.expenseapp.service;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 單一使用者的支出標題倒排索引
+ * 標題正規化後切成 bigram，查詢時取各 bigram 對應支出的交集，再以子字串比對確認，
+ * 結果與 LIKE '%關鍵字%' 相同，但只需要看少量候選，不必掃描所有支出。
+ * 非執行緒安全，由 ExpenseTitleSearchService 以 synchronized 保護。
+ */
+public class TitleInvertedIndex {
+
+    private record Document(String title, LocalDate expenseDate) {
+    }
+
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    /**
+     * 新增或更新一筆支出
+     */
+    public void put(Long id, String title, LocalDate expenseDate) {
+        remove(id);
+        String normalized = normalize(title);
+        documents.put(id, new Document(normalized, expenseDate));
+        for (String token : tokenize(normalized)) {
+            postings.computeIfAbsent(token, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    public void remove(Long id) {
+        Document previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String token : tokenize(previous.title())) {
+            Set<Long> ids = postings.get(token);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    /**
+     * 標題包含 query 的支出 id，依支出日期由新到舊排序，最多 limit 筆
+     */
+    public List<Long> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isBlank()) {
+            return List.of();
+        }
+
+        Set<Long> candidates = candidates(tokenize(normalized));
+        List<Map.Entry<Long, Document>> matches = new ArrayList<>();
+        if (candidates == null) {
+            // 查詢字太短（例如單一中文字）沒有可用的 bigram，只能逐筆比對
+            for (Map.Entry<Long, Document> entry : documents.entrySet()) {
+                if (entry.getValue().title().contains(normalized)) {
+                    matches.add(entry);
+                }
+            }
+        } else {
+            for (Long id : candidates) {
+                Document document = documents.get(id);
+                if (document != null && document.title().contains(normalized)) {
+                    matches.add(Map.entry(id, document));
+                }
+            }
+        }
+
+        return matches.stream()
+                .sorted(Comparator.comparing((Map.Entry<Long, Document> entry) -> entry.getValue().expenseDate(),
+                                Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(Map.Entry::getKey, Comparator.reverseOrder()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * 由最少的 posting 開始取交集；沒有任何 token 時回傳 null
+     */
+    private Set<Long> candidates(Set<String> tokens) {
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        List<Set<Long>> lists = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            Set<Long> ids = postings.get(token);
+            if (ids == null) {
+                return Set.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 全形轉半形、英文轉小寫，讓「ＳＴＡＲＢＵＣＫＳ」與「starbucks」視為相同
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 將已正規化的文字切成 bigram
+     * 以中日韓文字與其他字母數字分段，各段分別切 bigram；標點與空白只作為分隔。
+     * 只有一個字元的段落不產生 token，查詢時由子字串比對處理。
+     */
+    public static Set<String> tokenize(String normalized) {
+        Set<String> tokens = new LinkedHashSet<>();
+        int length = normalized.length();
+        int runStart = -1;
+        boolean runCjk = false;
+
+        int i = 0;
+        while (i <= length) {
+            int codePoint = i < length ? normalized.codePointAt(i) : -1;
+            boolean wordChar = codePoint >= 0 && Character.isLetterOrDigit(codePoint);
+            boolean cjk = wordChar && isCjk(codePoint);
+
+            if (runStart >= 0 && (!wordChar || cjk != runCjk)) {
+                addBigrams(normalized, runStart, i, tokens);
+                runStart = -1;
+            }
+            if (wordChar && runStart < 0) {
+                runStart = i;
+                runCjk = cjk;
+            }
+            i += codePoint >= 0 ? Character.charCount(codePoint) : 1;
+        }
+        return tokens;
+    }
+
+    private static void addBigrams(String text, int start, int end, Set<String> tokens) {
+        int first = start;
+        while (first < end) {
+            int second = first + Character.charCount(text.codePointAt(first));
+            if (second >= end) {
+                break;
+            }
+            int third = second + Character.charCount(text.codePointAt(second));
+            tokens.add(text.substring(first, third));
+            first = second;
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.expenseapp.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 每位使用者的資料版本號（支出、預算任何異動都會遞增），用來產生 ETag
+ * 版本號存在資料庫（user_data_versions），多節點部署時任一節點的寫入（包含排程）都會讓所有節點的 ETag 失效。
+ */
+@Service
+public class UserDataVersionService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 目前版本（尚未有任何異動時為 0）
+     */
+    public long currentVersion(String username) {
+        List<Long> versions = jdbcTemplate.queryForList(
+                "SELECT v.version FROM user_data_versions v JOIN users u ON u.id = v.user_id WHERE u.username = ?",
+                Long.class, username);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+
+    /**
+     * 資料異動後遞增版本
+     * 在交易中呼叫時與資料異動一起提交，其他請求在提交前讀到的仍是舊版本號
+     */
+    public void bump(Long userId) {
+        jdbcTemplate.update("INSERT INTO user_data_versions (user_id, version) VALUES (?, 1) " +
+                "ON DUPLICATE KEY UPDATE version = version + 1", userId);
+    }
+}
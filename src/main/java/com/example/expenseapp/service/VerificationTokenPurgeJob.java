@@ -0,0 +1,95 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.repository.VerificationTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 過期驗證 Token 清除排程
+ * 依 expires_at 索引分段批量刪除，每段獨立交易；以資料庫租約避免多節點同時執行
+ */
+@Service
+public class VerificationTokenPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(VerificationTokenPurgeJob.class);
+
+    private static final String LOCK_NAME = "verification-token-purge";
+
+    @Autowired
+    private VerificationTokenRepository tokenRepository;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Counter purgedCounter;
+
+    @Value("${app.token.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    // 過期後保留一段時間，讓使用者點擊舊連結時仍能看到「已過期」而非「無效」
+    @Value("${app.token.purge.retention:1d}")
+    private Duration retention;
+
+    @Value("${app.token.purge.lease:10m}")
+    private Duration lease;
+
+    public VerificationTokenPurgeJob(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.purgedCounter = Counter.builder("verification_tokens.purged")
+                .description("已清除的過期驗證 Token 數量")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.token.purge.cron:0 15 3 * * *}")
+    public void scheduledPurge() {
+        purgeExpiredTokens();
+    }
+
+    /**
+     * 清除過期 Token，回傳刪除筆數（未取得租約時回傳 -1）
+     */
+    public int purgeExpiredTokens() {
+        if (!schedulerLockService.tryAcquire(LOCK_NAME, lease)) {
+            log.debug("Verification token purge skipped: lease held by another node");
+            return -1;
+        }
+
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int total = 0;
+        int chunks = 0;
+        try {
+            Integer deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> tokenRepository.deleteExpiredChunk(cutoff, chunkSize));
+                deleted = deleted != null ? deleted : 0;
+                total += deleted;
+                chunks++;
+                // 每段之間延長租約；租約已遺失時停止，剩下的交給目前持有租約的節點
+                if (deleted == chunkSize && !schedulerLockService.renew(LOCK_NAME, lease)) {
+                    log.warn("Verification token purge stopped after {} chunk(s): lease lost", chunks);
+                    break;
+                }
+            } while (deleted == chunkSize);
+        } finally {
+            schedulerLockService.release(LOCK_NAME);
+        }
+
+        purgedCounter.increment(total);
+        log.info("Purged {} expired verification tokens in {} chunk(s), {} ms (cutoff={})",
+                total, chunks, System.currentTimeMillis() - start, cutoff);
+        return total;
+    }
+}
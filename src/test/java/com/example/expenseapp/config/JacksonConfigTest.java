@@ -0,0 +1,114 @@
+package com.example.expenseapp.config;
+
+import com.example.expenseapp.model.Expense;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JacksonConfigTest {
+
+    private static final String[] CATEGORIES = {"餐飲", "交通", "娛樂", "購物", "醫療", "教育", "其他"};
+
+    @Test
+    @DisplayName("測試調校後的序列化 - 與預設輸出相同且 BigDecimal 不使用科學記號")
+    void testTunedOutputMatchesDefault() throws Exception {
+        List<Expense> expenses = generateExpenses(200);
+        Expense rounded = new Expense("整數金額", new BigDecimal("1E+3"), "其他", LocalDate.of(2025, 10, 1));
+        expenses.add(rounded);
+
+        String tuned = tunedMapper().writeValueAsString(expenses);
+        String plain = defaultMapper().writeValueAsString(expenses);
+
+        assertThat(tuned).contains("\"amount\":1000");
+        assertThat(tuned).doesNotContain("1E+3");
+        assertThat(tuned.replace("\"amount\":1000,", "\"amount\":1E+3,")).isEqualTo(plain);
+    }
+
+    /**
+     * 序列化基準測試：mvn test -Dtest=JacksonConfigTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("基準測試：預設 vs 調校後的序列化與壓縮")
+    void benchmarkSerialization() throws Exception {
+        ObjectMapper defaultMapper = defaultMapper();
+        ObjectMapper tunedMapper = tunedMapper();
+
+        System.out.printf("%8s %12s %12s %12s %14s %14s%n",
+                "rows", "json(bytes)", "gzip(bytes)", "ratio", "default(us)", "tuned(us)");
+        for (int rows : new int[]{1_000, 10_000, 50_000, 100_000}) {
+            List<Expense> expenses = generateExpenses(rows);
+            byte[] json = tunedMapper.writeValueAsBytes(expenses);
+            byte[] gzip = gzip(json);
+
+            long defaultMicros = measure(defaultMapper, expenses);
+            long tunedMicros = measure(tunedMapper, expenses);
+
+            System.out.printf("%8d %12d %12d %12.2f %14d %14d%n",
+                    rows, json.length, gzip.length, (double) json.length / gzip.length, defaultMicros, tunedMicros);
+        }
+    }
+
+    private long measure(ObjectMapper mapper, List<Expense> expenses) throws IOException {
+        // 暖機讓 JIT 與 Blackbird 存取器就緒
+        for (int i = 0; i < 5; i++) {
+            mapper.writeValueAsBytes(expenses);
+        }
+        int iterations = 10;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            mapper.writeValueAsBytes(expenses);
+        }
+        return (System.nanoTime() - start) / iterations / 1_000;
+    }
+
+    private ObjectMapper defaultMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    // 與 application.properties 及 JacksonConfig 相同的設定
+    private ObjectMapper tunedMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new JacksonConfig().blackbirdModule())
+                .featuresToEnable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN)
+                .build();
+    }
+
+    private byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private List<Expense> generateExpenses(int count) {
+        Random random = new Random(42);
+        List<Expense> expenses = new ArrayList<>(count);
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < count; i++) {
+            Expense expense = new Expense(
+                    "支出項目 " + (i % 500),
+                    BigDecimal.valueOf(random.nextInt(1_000_000), 2),
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    start.plusDays(random.nextInt(365)));
+            expense.setId((long) i + 1);
+            expenses.add(expense);
+        }
+        return expenses;
+    }
+}
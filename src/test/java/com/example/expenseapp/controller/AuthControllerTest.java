@@ -5,6 +5,8 @@ import com.example.expenseapp.model.User;
 import com.example.expenseapp.model.VerificationToken;
 import com.example.expenseapp.repository.UserRepository;
 import com.example.expenseapp.repository.VerificationTokenRepository;
+import com.example.expenseapp.security.JwtService;
+import com.example.expenseapp.security.TokenRevocationService;
 import com.example.expenseapp.service.EmailService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,9 +20,12 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.*;
@@ -48,6 +53,12 @@ class AuthControllerTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @MockitoBean  // Mock EmailService
     private EmailService emailService;
 
@@ -209,6 +220,124 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.message").value(containsString("帳號或密碼錯誤")));
     }
 
+    // ========== Refresh Token 測試 ==========
+
+    @Test
+    @DisplayName("測試換發 Token - 成功並輪替 Refresh Token")
+    void testRefresh_Success() throws Exception {
+        User user = new User("jane_doe", "jane@example.com",
+                passwordEncoder.encode("password123"), "Jane Doe");
+        user.setStatus(User.UserStatus.ACTIVE);
+        user = userRepository.save(user);
+
+        String refreshToken = jwtService.generateRefreshToken(user);
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest(refreshToken))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").exists())
+                .andExpect(jsonPath("$.refreshToken").value(not(refreshToken)))
+                .andExpect(jsonPath("$.user.username").value("jane_doe"));
+    }
+
+    @Test
+    @DisplayName("測試換發 Token - 重複使用已輪替的 Refresh Token")
+    void testRefresh_ReusedToken() throws Exception {
+        User user = new User("jane_doe", "jane@example.com",
+                passwordEncoder.encode("password123"), "Jane Doe");
+        user.setStatus(User.UserStatus.ACTIVE);
+        user = userRepository.save(user);
+
+        String refreshToken = jwtService.generateRefreshToken(user);
+        String content = objectMapper.writeValueAsString(new RefreshTokenRequest(refreshToken));
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value(containsString("重新登入")));
+    }
+
+    @Test
+    @DisplayName("測試換發 Token - 記憶體快取清空後（重新啟動或其他節點）仍能偵測重複使用")
+    void testRefresh_ReusedTokenAfterCacheLoss() throws Exception {
+        User user = new User("jane_doe", "jane@example.com",
+                passwordEncoder.encode("password123"), "Jane Doe");
+        user.setStatus(User.UserStatus.ACTIVE);
+        user = userRepository.save(user);
+
+        String refreshToken = jwtService.generateRefreshToken(user);
+        String content = objectMapper.writeValueAsString(new RefreshTokenRequest(refreshToken));
+
+        String response = mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String rotatedToken = objectMapper.readTree(response).get("refreshToken").asText();
+
+        clearRevocationCache();
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(status().isUnauthorized());
+
+        // 偵測到重複使用後，輪替出的新 Token 也一併失效
+        clearRevocationCache();
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest(rotatedToken))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("測試換發 Token - 全部撤銷後立即簽發的 Token 仍有效（同一秒內）")
+    void testRefresh_IssuedRightAfterRevokeAll() throws Exception {
+        User user = new User("jane_doe", "jane@example.com",
+                passwordEncoder.encode("password123"), "Jane Doe");
+        user.setStatus(User.UserStatus.ACTIVE);
+        user = userRepository.save(user);
+
+        String revokedToken = jwtService.generateRefreshToken(user);
+        Thread.sleep(2);
+        tokenRevocationService.revokeAllForUser(user.getUsername());
+        Thread.sleep(2);
+        String newToken = jwtService.generateRefreshToken(user);
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest(revokedToken))))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest(newToken))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("測試換發 Token - 以 Access Token 換發")
+    void testRefresh_AccessTokenRejected() throws Exception {
+        User user = new User("jane_doe", "jane@example.com",
+                passwordEncoder.encode("password123"), "Jane Doe");
+        user.setStatus(User.UserStatus.ACTIVE);
+        user = userRepository.save(user);
+
+        String accessToken = jwtService.generateToken(user);
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest(accessToken))))
+                .andExpect(status().isUnauthorized());
+    }
+
     // ========== Email 驗證測試 ==========
 
     @Test
@@ -380,6 +509,32 @@ class AuthControllerTest {
         assert passwordEncoder.matches("newpassword123", updatedUser.getPassword());
     }
 
+    @Test
+    @DisplayName("測試重設密碼 - 重設前簽發的 Refresh Token 失效")
+    void testResetPassword_RevokesRefreshTokens() throws Exception {
+        User user = new User("john_doe", "john@example.com",
+                passwordEncoder.encode("oldpassword"), "John Doe");
+        user.setStatus(User.UserStatus.ACTIVE);
+        user = userRepository.save(user);
+        String refreshToken = jwtService.generateRefreshToken(user);
+
+        String token = UUID.randomUUID().toString();
+        tokenRepository.save(new VerificationToken(
+                user, token, VerificationToken.TokenType.PASSWORD_RESET,
+                LocalDateTime.now().plusHours(1)
+        ));
+
+        mockMvc.perform(post("/api/auth/reset-password")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ResetPasswordRequest(token, "newpassword123"))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest(refreshToken))))
+                .andExpect(status().isUnauthorized());
+    }
+
     @Test
     @DisplayName("測試重設密碼 - Token 無效")
     void testResetPassword_InvalidToken() throws Exception {
@@ -413,4 +568,11 @@ class AuthControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value(containsString("過期")));
     }
-}
\ No newline at end of file
+
+    // 模擬重新啟動或請求落在另一個節點：只剩資料庫中的撤銷紀錄
+    private void clearRevocationCache() {
+        TokenRevocationService target = AopTestUtils.getTargetObject(tokenRevocationService);
+        ((Map<?, ?>) ReflectionTestUtils.getField(target, "revokedTokenIds")).clear();
+        ((Map<?, ?>) ReflectionTestUtils.getField(target, "revokedBefore")).clear();
+    }
+}
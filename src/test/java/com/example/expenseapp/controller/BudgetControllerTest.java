@@ -4,7 +4,9 @@ import com.example.expenseapp.config.DotenvTestConfig;
 import com.example.expenseapp.model.Budget;
 import com.example.expenseapp.model.Expense;
 import com.example.expenseapp.model.User;
+import com.example.expenseapp.model.EmailOutbox;
 import com.example.expenseapp.repository.BudgetRepository;
+import com.example.expenseapp.repository.EmailOutboxRepository;
 import com.example.expenseapp.repository.ExpenseRepository;
 import com.example.expenseapp.repository.UserRepository;
 import com.example.expenseapp.security.JwtService;
@@ -16,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -28,6 +31,7 @@ import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -50,6 +54,9 @@ public class BudgetControllerTest {
     @Autowired
     private ExpenseRepository expenseRepository;
 
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -62,6 +69,9 @@ public class BudgetControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private User testUser;
     private String token;
 
@@ -189,6 +199,37 @@ public class BudgetControllerTest {
                 .andExpect(status().isInternalServerError());
     }
 
+    @Test
+    @DisplayName("測試複製預算到下個月 - 已存在的預算保留不變")
+    void testRolloverBudgets() throws Exception {
+        budgetRepository.save(new Budget(testUser, Budget.BudgetType.MONTHLY, null, BigDecimal.valueOf(10000), 2025, 10));
+        budgetRepository.save(new Budget(testUser, Budget.BudgetType.CATEGORY, "餐飲", BigDecimal.valueOf(3000), 2025, 10));
+        budgetRepository.save(new Budget(testUser, Budget.BudgetType.CATEGORY, "交通", BigDecimal.valueOf(1000), 2025, 10));
+        // 下個月已有餐飲預算
+        budgetRepository.save(new Budget(testUser, Budget.BudgetType.CATEGORY, "餐飲", BigDecimal.valueOf(2500), 2025, 11));
+
+        mockMvc.perform(post("/api/budgets/rollover")
+                        .header("Authorization", "Bearer " + token)
+                        .param("year", "2025")
+                        .param("month", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[?(@.category == '餐飲')].amount").value(2500.0))
+                .andExpect(jsonPath("$[?(@.category == '交通')].month").value(11))
+                .andExpect(jsonPath("$[?(@.budgetType == 'MONTHLY')].amount").value(10000.0));
+    }
+
+    @Test
+    @DisplayName("測試複製預算到下個月 - 月份超出範圍")
+    void testRolloverBudgets_InvalidMonth() throws Exception {
+        mockMvc.perform(post("/api/budgets/rollover")
+                        .header("Authorization", "Bearer " + token)
+                        .param("year", "2025")
+                        .param("month", "13"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.month").value("月份必須在 1-12 之間"));
+    }
+
     @Test
     @DisplayName("測試查詢預算 - 根據 ID")
     void testGetBudgetById() throws Exception {
@@ -267,6 +308,50 @@ public class BudgetControllerTest {
                 .andExpect(jsonPath("$", hasSize(1)));
     }
 
+    @Test
+    @DisplayName("測試查詢當月預算 - ETag 未變更時回傳 304")
+    void testGetCurrentMonthBudgets_NotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // 不同的查詢參數有不同的 ETag
+        mockMvc.perform(get("/api/budgets")
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag)
+                        .param("year", "2025")
+                        .param("month", "10"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    @DisplayName("測試查詢當月預算 - 其他節點寫入後 ETag 失效")
+    void testGetCurrentMonthBudgets_EtagChangedByOtherNode() throws Exception {
+        String etag = mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // 其他節點（或排程）的異動只會遞增資料庫中的版本號，本節點記憶體沒有任何變化
+        jdbcTemplate.update("INSERT INTO user_data_versions (user_id, version) VALUES (?, 1) " +
+                "ON DUPLICATE KEY UPDATE version = version + 1", testUser.getId());
+
+        mockMvc.perform(get("/api/budgets/current")
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
     @Test
     @DisplayName("測試預算自動計算 - 已使用金額")
     void testBudgetCalculation_Spent() throws Exception {
@@ -318,6 +403,35 @@ public class BudgetControllerTest {
                 .andExpect(jsonPath("$.percentage").value(closeTo(11.67, 0.01)));
     }
 
+    @Test
+    @DisplayName("測試預算自動計算 - 支出修改與刪除後更新已使用金額")
+    void testBudgetCalculation_AfterExpenseChanges() throws Exception {
+        Budget budget = new Budget();
+        budget.setUser(testUser);
+        budget.setBudgetType(Budget.BudgetType.CATEGORY);
+        budget.setCategory("餐飲");
+        budget.setAmount(BigDecimal.valueOf(1000));
+        budget.setYear(2025);
+        budget.setMonth(10);
+        budget = budgetRepository.save(budget);
+
+        Expense lunch = expenseRepository.save(new Expense(testUser, "午餐", BigDecimal.valueOf(150), "餐飲", LocalDate.of(2025, 10, 10)));
+        Expense dinner = expenseRepository.save(new Expense(testUser, "晚餐", BigDecimal.valueOf(200), "餐飲", LocalDate.of(2025, 10, 11)));
+        Expense snack = expenseRepository.save(new Expense(testUser, "點心", BigDecimal.valueOf(80), "餐飲", LocalDate.of(2025, 10, 12)));
+
+        // 修改金額、改到其他分類、刪除
+        lunch.setAmount(BigDecimal.valueOf(100));
+        dinner.setCategory("交通");
+        expenseRepository.delete(snack);
+        expenseRepository.flush();
+
+        mockMvc.perform(get("/api/budgets/" + budget.getId())
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.spent").value(100.0))
+                .andExpect(jsonPath("$.remaining").value(900.0));
+    }
+
     @Test
     @DisplayName("測試更新預算")
     void testUpdateBudget() throws Exception {
@@ -367,6 +481,60 @@ public class BudgetControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("測試預算提醒 - 修改在最後一次 flush 才寫入時，提醒信仍寫入 Outbox")
+    void testBudgetAlert_QueuedDuringFinalFlush() throws Exception {
+        Budget budget = new Budget();
+        budget.setUser(testUser);
+        budget.setBudgetType(Budget.BudgetType.MONTHLY);
+        budget.setAmount(BigDecimal.valueOf(1000));
+        budget.setYear(2025);
+        budget.setMonth(10);
+        budgetRepository.save(budget);
+
+        Expense lunch = expenseRepository.save(new Expense(testUser, "午餐", BigDecimal.valueOf(100), "餐飲", LocalDate.of(2025, 10, 10)));
+        expenseRepository.flush();
+
+        // 只改 managed 實體、不呼叫 save：UPDATE 與門檻判斷都發生在 flush 期間（等同提交前的 flush）
+        lunch.setAmount(BigDecimal.valueOf(900));
+        expenseRepository.flush();
+
+        assertThat(outboxRepository.findAll().stream()
+                .filter(outbox -> outbox.getRecipient().equals(testUser.getEmail()))
+                .map(EmailOutbox::getSubject)
+                .toList())
+                .hasSize(1);
+    }
+
+    @Test
+    @DisplayName("測試預算提醒 - 分類大小寫不同仍計入同一分類預算")
+    void testBudgetAlert_MixedCaseCategory() throws Exception {
+        Budget budget = new Budget();
+        budget.setUser(testUser);
+        budget.setBudgetType(Budget.BudgetType.CATEGORY);
+        budget.setCategory("Food");
+        budget.setAmount(BigDecimal.valueOf(1000));
+        budget.setYear(2025);
+        budget.setMonth(10);
+        budgetRepository.save(budget);
+
+        expenseRepository.save(new Expense(testUser, "午餐", BigDecimal.valueOf(100), "food", LocalDate.of(2025, 10, 10)));
+        expenseRepository.save(new Expense(testUser, "晚餐", BigDecimal.valueOf(750), "FOOD", LocalDate.of(2025, 10, 11)));
+        expenseRepository.flush();
+
+        // 兩筆累加在同一列計數器（名稱以分類字典中的為準）
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT spent FROM budget_spent_counters WHERE user_id = ? AND year = 2025 AND month = 10 AND category <> ''",
+                BigDecimal.class, testUser.getId()))
+                .singleElement()
+                .satisfies(spent -> assertThat(spent).isEqualByComparingTo("850"));
+        // 跨過 80% 門檻
+        assertThat(outboxRepository.findAll().stream()
+                .filter(outbox -> outbox.getRecipient().equals(testUser.getEmail()))
+                .toList())
+                .hasSize(1);
+    }
+
     @Test
     @DisplayName("測試未登入存取預算 API")
     void testBudget_Unauthorized() throws Exception {
@@ -6,6 +6,7 @@ import com.example.expenseapp.model.User;
 import com.example.expenseapp.repository.ExpenseRepository;
 import com.example.expenseapp.repository.UserRepository;
 import com.example.expenseapp.security.JwtService;
+import com.example.expenseapp.service.ExpenseCategoryService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,15 +15,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -53,6 +60,12 @@ class ExpenseControllerTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ExpenseCategoryService expenseCategoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private String token;
     private User testUser;
 
@@ -353,6 +366,24 @@ class ExpenseControllerTest {
                 .andExpect(jsonPath("$.content[2].title").value("最舊"));
     }
 
+    @Test
+    @DisplayName("測試分頁查詢 - 依分類名稱排序")
+    void testPagination_SortByCategory() throws Exception {
+        // 字典 id 依建立順序為 Transport、Food、Rent，依名稱排序應為 Food、Rent、Transport
+        expenseRepository.save(new Expense(testUser, "第一筆", BigDecimal.valueOf(100), "Transport", LocalDate.now()));
+        expenseRepository.save(new Expense(testUser, "第二筆", BigDecimal.valueOf(200), "Food", LocalDate.now()));
+        expenseRepository.save(new Expense(testUser, "第三筆", BigDecimal.valueOf(300), "Rent", LocalDate.now()));
+
+        mockMvc.perform(get("/api/expenses")
+                        .header("Authorization", "Bearer " + token)
+                        .param("sortBy", "category")
+                        .param("sortDirection", "asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].category").value("Food"))
+                .andExpect(jsonPath("$.content[1].category").value("Rent"))
+                .andExpect(jsonPath("$.content[2].category").value("Transport"));
+    }
+
     @Test
     @DisplayName("測試分頁查詢 - 空結果")
     void testPagination_EmptyResult() throws Exception {
@@ -401,6 +432,38 @@ class ExpenseControllerTest {
                 .andExpect(jsonPath("$", hasSize(2)));
     }
 
+    @Test
+    @DisplayName("測試根據日期範圍查詢支出 - NDJSON 串流")
+    void testGetExpensesByDateRange_Ndjson() throws Exception {
+        LocalDate today = LocalDate.now();
+        LocalDate yesterday = today.minusDays(1);
+
+        expenseRepository.save(new Expense(testUser, "今天", BigDecimal.valueOf(100), "餐飲", today));
+        expenseRepository.save(new Expense(testUser, "昨天", BigDecimal.valueOf(200), "交通", yesterday));
+        expenseRepository.save(new Expense(testUser, "前天", BigDecimal.valueOf(300), "餐飲", today.minusDays(2)));
+        // 清空分類名稱快取：串流讀取時若要逐筆查詢分類名稱會失敗
+        ((Map<?, ?>) ReflectionTestUtils.getField(expenseCategoryService, "namesById")).clear();
+
+        MvcResult result = mockMvc.perform(get("/api/expenses/date-range")
+                        .header("Authorization", "Bearer " + token)
+                        .accept("application/x-ndjson")
+                        .param("startDate", yesterday.toString())
+                        .param("endDate", today.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.trim().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], Expense.class).getTitle()).isEqualTo("今天");
+        assertThat(objectMapper.readValue(lines[1], Expense.class).getTitle()).isEqualTo("昨天");
+        assertThat(objectMapper.readValue(lines[1], Expense.class).getCategory()).isEqualTo("交通");
+    }
+
     @Test
     @DisplayName("測試日期範圍查詢 - 開始日期晚於結束日期")
     void testGetExpensesByDateRange_InvalidRange() throws Exception {
@@ -452,6 +515,231 @@ class ExpenseControllerTest {
                 .andExpect(jsonPath("$", containsInAnyOrder("交通", "娛樂", "餐飲")));
     }
 
+    @Test
+    @DisplayName("測試分類目錄 - 排除範圍外的分類並反映新增的支出")
+    void testGetCategoriesByDateRange_Catalog() throws Exception {
+        LocalDate today = LocalDate.now();
+        LocalDate lastMonth = today.minusMonths(1);
+
+        expenseRepository.save(new Expense(testUser, "餐飲支出", BigDecimal.valueOf(100), "餐飲", today));
+        expenseRepository.save(new Expense(testUser, "上月醫療", BigDecimal.valueOf(500), "醫療", lastMonth));
+
+        mockMvc.perform(get("/api/expenses/categories")
+                        .header("Authorization", "Bearer " + token)
+                        .param("startDate", today.toString())
+                        .param("endDate", today.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", contains("餐飲")));
+
+        expenseRepository.save(new Expense(testUser, "今天醫療", BigDecimal.valueOf(300), "醫療", today));
+
+        mockMvc.perform(get("/api/expenses/categories")
+                        .header("Authorization", "Bearer " + token)
+                        .param("startDate", today.toString())
+                        .param("endDate", today.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", containsInAnyOrder("餐飲", "醫療")));
+    }
+
+    @Test
+    @DisplayName("測試分類目錄 - 只列出區間內實際有支出的分類，刪除支出後不再列出")
+    void testGetCategoriesByDateRange_Exact() throws Exception {
+        LocalDate today = LocalDate.now();
+
+        expenseRepository.save(new Expense(testUser, "餐飲支出", BigDecimal.valueOf(100), "餐飲", today));
+        // 醫療的使用範圍涵蓋查詢區間，但區間內沒有支出
+        expenseRepository.save(new Expense(testUser, "上月醫療", BigDecimal.valueOf(500), "醫療", today.minusMonths(1)));
+        Expense taxi = expenseRepository.save(new Expense(testUser, "計程車", BigDecimal.valueOf(200), "交通", today.minusDays(3)));
+        expenseRepository.save(new Expense(testUser, "今天醫療", BigDecimal.valueOf(300), "醫療", today));
+
+        mockMvc.perform(get("/api/expenses/categories")
+                        .header("Authorization", "Bearer " + token)
+                        .param("startDate", today.minusDays(7).toString())
+                        .param("endDate", today.minusDays(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", contains("交通")));
+
+        expenseRepository.delete(taxi);
+
+        mockMvc.perform(get("/api/expenses/categories")
+                        .header("Authorization", "Bearer " + token)
+                        .param("startDate", today.minusDays(7).toString())
+                        .param("endDate", today.minusDays(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("測試依標題搜尋 - 建立索引後新增與刪除即時反映")
+    void testSearchExpensesByTitle() throws Exception {
+        LocalDate today = LocalDate.now();
+
+        expenseRepository.save(new Expense(testUser, "星巴克拿鐵", BigDecimal.valueOf(150), "餐飲", today.minusDays(1)));
+        expenseRepository.save(new Expense(testUser, "捷運", BigDecimal.valueOf(30), "交通", today));
+
+        mockMvc.perform(get("/api/expenses/search/title")
+                        .header("Authorization", "Bearer " + token)
+                        .param("q", "星巴克"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title").value("星巴克拿鐵"));
+
+        Expense added = expenseRepository.save(new Expense(testUser, "星巴克美式", BigDecimal.valueOf(120), "餐飲", today));
+
+        mockMvc.perform(get("/api/expenses/search/title")
+                        .header("Authorization", "Bearer " + token)
+                        .param("q", "星巴克"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].title").value("星巴克美式"));
+
+        expenseRepository.delete(added);
+
+        mockMvc.perform(get("/api/expenses/search/title")
+                        .header("Authorization", "Bearer " + token)
+                        .param("q", "美式"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(get("/api/expenses/search/title")
+                        .header("Authorization", "Bearer " + token)
+                        .param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("測試依標題搜尋 - 其他節點的寫入遞增版本號後，索引重建而不回傳過期結果")
+    void testSearchExpensesByTitle_WriteFromOtherNode() throws Exception {
+        Expense latte = expenseRepository.save(new Expense(testUser, "星巴克拿鐵", BigDecimal.valueOf(150), "餐飲", LocalDate.now()));
+
+        mockMvc.perform(get("/api/expenses/search/title")
+                        .header("Authorization", "Bearer " + token)
+                        .param("q", "拿鐵"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        // 模擬其他節點：直接改資料庫並遞增版本號，本節點的索引不會收到提交後的增量更新
+        jdbcTemplate.update("UPDATE expenses SET title = ? WHERE id = ?", "星巴克冷萃", latte.getId());
+        jdbcTemplate.update("INSERT INTO expense_write_versions (user_id, version) VALUES (?, 1) " +
+                "ON DUPLICATE KEY UPDATE version = version + 1", testUser.getId());
+
+        mockMvc.perform(get("/api/expenses/search/title")
+                        .header("Authorization", "Bearer " + token)
+                        .param("q", "冷萃"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title").value("星巴克冷萃"));
+
+        mockMvc.perform(get("/api/expenses/search/title")
+                        .header("Authorization", "Bearer " + token)
+                        .param("q", "拿鐵"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("測試組合查詢 - 多分類、日期、金額與標題前綴")
+    void testQueryExpenses_CombinedFilters() throws Exception {
+        LocalDate today = LocalDate.now();
+
+        expenseRepository.save(new Expense(testUser, "星巴克拿鐵", BigDecimal.valueOf(150), "餐飲", today));
+        expenseRepository.save(new Expense(testUser, "星巴克蛋糕", BigDecimal.valueOf(90), "餐飲", today));
+        expenseRepository.save(new Expense(testUser, "星巴克隨行卡", BigDecimal.valueOf(500), "購物", today.minusDays(10)));
+        expenseRepository.save(new Expense(testUser, "計程車", BigDecimal.valueOf(300), "交通", today));
+        expenseRepository.save(new Expense(testUser, "100%_果汁", BigDecimal.valueOf(60), "餐飲", today));
+
+        mockMvc.perform(get("/api/expenses/query")
+                        .header("Authorization", "Bearer " + token)
+                        .param("categories", "餐飲", "購物")
+                        .param("startDate", today.minusDays(3).toString())
+                        .param("minAmount", "100")
+                        .param("titlePrefix", "星巴克"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].title").value("星巴克拿鐵"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        // 前綴中的 % 與 _ 視為一般字元
+        mockMvc.perform(get("/api/expenses/query")
+                        .header("Authorization", "Bearer " + token)
+                        .param("titlePrefix", "100%_"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)));
+
+        mockMvc.perform(get("/api/expenses/query")
+                        .header("Authorization", "Bearer " + token)
+                        .param("categories", "不存在的分類"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("測試組合查詢 - keyset 分頁依金額排序且不重複不遺漏")
+    void testQueryExpenses_KeysetPaging() throws Exception {
+        LocalDate today = LocalDate.now();
+        for (int i = 1; i <= 5; i++) {
+            // 兩筆同金額，驗證以 id 排序區分
+            BigDecimal amount = BigDecimal.valueOf(i == 5 ? 400 : i * 100);
+            expenseRepository.save(new Expense(testUser, "支出" + i, amount, "其他", today));
+        }
+
+        String firstPage = mockMvc.perform(get("/api/expenses/query")
+                        .header("Authorization", "Bearer " + token)
+                        .param("sortBy", "amount")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].title", contains("支出5", "支出4")))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        String secondPage = mockMvc.perform(get("/api/expenses/query")
+                        .header("Authorization", "Bearer " + token)
+                        .param("sortBy", "amount")
+                        .param("size", "2")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].title", contains("支出3", "支出2")))
+                .andReturn().getResponse().getContentAsString();
+        cursor = objectMapper.readTree(secondPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/expenses/query")
+                        .header("Authorization", "Bearer " + token)
+                        .param("sortBy", "amount")
+                        .param("size", "2")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].title", contains("支出1")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        // 游標與排序欄位不符
+        mockMvc.perform(get("/api/expenses/query")
+                        .header("Authorization", "Bearer " + token)
+                        .param("sortBy", "expenseDate")
+                        .param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("測試組合查詢 - 不合法的參數")
+    void testQueryExpenses_InvalidParameters() throws Exception {
+        mockMvc.perform(get("/api/expenses/query")
+                        .header("Authorization", "Bearer " + token)
+                        .param("minAmount", "500")
+                        .param("maxAmount", "100"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/expenses/query")
+                        .header("Authorization", "Bearer " + token)
+                        .param("sortBy", "title"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/expenses/query")
+                        .header("Authorization", "Bearer " + token)
+                        .param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("測試查詢空結果")
     void testGetExpensesByCategory_NoResults() throws Exception {
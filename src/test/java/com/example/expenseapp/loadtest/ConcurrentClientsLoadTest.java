@@ -0,0 +1,103 @@
+package com.example.expenseapp.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 併發負載測試（針對已啟動的應用程式）
+ * 分別以 VIRTUAL_THREADS_ENABLED=false / true 啟動應用後執行，比較兩者的吞吐量與延遲：
+ *
+ * mvn test -Dtest=ConcurrentClientsLoadTest -Dloadtest.baseUrl=http://localhost:8080 -Dloadtest.token=JWT
+ */
+@EnabledIfSystemProperty(named = "loadtest.baseUrl", matches = ".+")
+public class ConcurrentClientsLoadTest {
+
+    private final String baseUrl = System.getProperty("loadtest.baseUrl");
+    private final String token = System.getProperty("loadtest.token", "");
+    private final String path = System.getProperty("loadtest.path", "/api/statistics/current-month");
+    private final int clients = Integer.getInteger("loadtest.clients", 2000);
+    private final int requestsPerClient = Integer.getInteger("loadtest.requestsPerClient", 20);
+
+    @Test
+    @DisplayName("負載測試：2000 個併發客戶端")
+    void testConcurrentClients() throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(clients * requestsPerClient));
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clients);
+
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                clientThreads.submit(() -> {
+                    try {
+                        startSignal.await();
+                        for (int i = 0; i < requestsPerClient; i++) {
+                            long start = System.nanoTime();
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            latencies.add(System.nanoTime() - start);
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                    return null;
+                });
+            }
+
+            long start = System.nanoTime();
+            startSignal.countDown();
+            done.await();
+            long elapsed = System.nanoTime() - start;
+
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            double seconds = elapsed / 1_000_000_000.0;
+
+            System.out.printf("clients=%d requests=%d errors=%d elapsed=%.2fs throughput=%.1f req/s%n",
+                    clients, sorted.size(), errors.get(), seconds, sorted.size() / seconds);
+            System.out.printf("latency p50=%dms p95=%dms p99=%dms max=%dms%n",
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), percentile(sorted, 100));
+
+            assertThat(sorted).isNotEmpty();
+        }
+    }
+
+    private long percentile(List<Long> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = Math.min(sorted.size() - 1, (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1);
+        return sorted.get(Math.max(0, index)) / 1_000_000;
+    }
+}
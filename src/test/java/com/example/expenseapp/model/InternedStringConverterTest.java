@@ -0,0 +1,95 @@
+package com.example.expenseapp.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InternedStringConverterTest {
+
+    private static final String[] TITLES = {"午餐", "晚餐", "捷運", "咖啡", "房租", "電話費", "超市採買", "健身房月費"};
+
+    @Test
+    @DisplayName("測試相同內容的字串回傳同一個實例")
+    void testInternReturnsSharedInstance() {
+        InternedStringConverter converter = new InternedStringConverter();
+
+        String first = converter.convertToEntityAttribute(new String("午餐"));
+        String second = converter.convertToEntityAttribute(new String("午餐"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+        assertThat(converter.convertToDatabaseColumn("午餐")).isEqualTo("午餐");
+    }
+
+    @Test
+    @DisplayName("測試槽位衝突時覆寫且不影響內容正確性")
+    void testBoundedPool() {
+        StringInternPool pool = new StringInternPool(3);
+        assertThat(pool.capacity()).isEqualTo(4);
+
+        for (int i = 0; i < 1_000; i++) {
+            String value = "標題" + i;
+            assertThat(pool.intern(new String(value))).isEqualTo(value);
+        }
+    }
+
+    /**
+     * 合成資料的堆積用量比較（不經過資料庫與 Hibernate）：mvn test -Dtest=InternedStringConverterTest -Dbenchmark=true
+     * 實際查詢的量測見 {@link InternedStringHeapBenchmarkTest}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("基準測試（合成資料）：50k 筆標題共用與不共用的堆積用量")
+    void benchmarkHeapUsage() {
+        System.out.printf("%10s %16s %14s%n", "mode", "distinct objects", "heap delta(KB)");
+        hydrate(50_000, false);
+        int distinct = hydrate(50_000, true);
+        assertThat(distinct).isEqualTo(TITLES.length);
+    }
+
+    /**
+     * 在記憶體中模擬 JDBC 驅動每一列都建立新的字串，回傳保留下來的不同字串實例數
+     */
+    private int hydrate(int rows, boolean interned) {
+        InternedStringConverter converter = new InternedStringConverter();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        List<String> titles = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String hydrated = new String(TITLES[i % TITLES.length].toCharArray());
+            titles.add(interned ? converter.convertToEntityAttribute(hydrated) : hydrated);
+        }
+        int distinctCount = countDistinctInstances(titles);
+
+        // 保留中與釋放後的堆積差值即為這批標題所佔的空間
+        long retained = usedHeap(memory);
+        Reference.reachabilityFence(titles);
+        titles = null;
+        long released = usedHeap(memory);
+        System.out.printf("%10s %16d %14d%n", interned ? "interned" : "plain", distinctCount, (retained - released) / 1024);
+        return distinctCount;
+    }
+
+    private static int countDistinctInstances(List<String> titles) {
+        Set<String> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(titles);
+        return distinct.size();
+    }
+
+    private long usedHeap(MemoryMXBean memory) {
+        System.gc();
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.expenseapp.model;
+
+import com.example.expenseapp.config.DotenvTestConfig;
+import com.example.expenseapp.repository.ExpenseRepository;
+import com.example.expenseapp.repository.UserRepository;
+import com.example.expenseapp.service.ExpenseCategoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 實際查詢的堆積量測：mvn test -Dtest=InternedStringHeapBenchmarkTest -Dbenchmark=true
+ * 以 findByUserAndExpenseDateBetween 載入 50k 筆支出，比較保留中與釋放後 class histogram 的
+ * java.lang.String 與 byte[] 差值；對照組以 JdbcTemplate 讀取同一批標題（驅動建立的字串，不共用）
+ */
+@SpringBootTest
+@ContextConfiguration(initializers = DotenvTestConfig.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class InternedStringHeapBenchmarkTest {
+
+    private static final int ROWS = 50_000;
+    private static final String[] TITLES = {"午餐", "晚餐", "捷運", "咖啡", "房租", "電話費", "超市採買", "健身房月費"};
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExpenseCategoryService expenseCategoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setUsername("heapbenchmark" + System.currentTimeMillis());
+        testUser.setEmail("heapbenchmark" + System.currentTimeMillis() + "@example.com");
+        testUser.setName("Heap Benchmark User");
+        testUser.setPassword("password");
+        testUser.setStatus(User.UserStatus.ACTIVE);
+        testUser = userRepository.save(testUser);
+
+        // 直接以 JDBC 批次寫入，不經過實體監聽器（不需要預算計數器與索引）
+        Integer categoryId = expenseCategoryService.resolveId(testUser.getId(), "餐飲");
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{testUser.getId(), TITLES[i % TITLES.length], BigDecimal.valueOf(100), categoryId,
+                    Date.valueOf(START.plusDays(i % 365))});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO expenses (user_id, title, amount, category_id, expense_date) VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM expenses WHERE user_id = ?", testUser.getId());
+        jdbcTemplate.update("DELETE FROM expense_categories WHERE user_id = ?", testUser.getId());
+        userRepository.deleteById(testUser.getId());
+    }
+
+    @Test
+    @DisplayName("基準測試：實際查詢 50k 筆支出時標題字串的堆積用量")
+    void benchmarkFindByDateRange() throws JMException {
+        LocalDate end = START.plusDays(364);
+        System.out.printf("%10s %14s %16s%n", "mode", "strings", "string+byte[](KB)");
+
+        long[] before = stringHistogram();
+        List<String> plain = jdbcTemplate.queryForList(
+                "SELECT title FROM expenses WHERE user_id = ? AND expense_date BETWEEN ? AND ?",
+                String.class, testUser.getId(), START, end);
+        print("plain", before, stringHistogram());
+        assertThat(plain).hasSize(ROWS);
+        Reference.reachabilityFence(plain);
+        plain = null;
+
+        before = stringHistogram();
+        List<Expense> expenses = expenseRepository.findByUserAndExpenseDateBetween(testUser, START, end);
+        print("interned", before, stringHistogram());
+        assertThat(expenses).hasSize(ROWS);
+        Reference.reachabilityFence(expenses);
+    }
+
+    private static void print(String mode, long[] before, long[] after) {
+        System.out.printf("%10s %14d %16d%n", mode, after[0] - before[0], (after[1] - before[1]) / 1024);
+    }
+
+    /**
+     * 以 GC.class_histogram 取得存活的 java.lang.String 個數，以及 String 與 byte[] 的總位元組數（會先執行 full GC）
+     */
+    private static long[] stringHistogram() throws JMException {
+        String histogram = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+                new Object[]{null}, new String[]{String[].class.getName()});
+        long strings = 0;
+        long bytes = 0;
+        for (String line : histogram.split("\n")) {
+            String[] columns = line.trim().split("\\s+");
+            if (columns.length < 4 || !columns[0].endsWith(":")) {
+                continue;
+            }
+            if (columns[3].equals("java.lang.String")) {
+                strings = Long.parseLong(columns[1]);
+                bytes += Long.parseLong(columns[2]);
+            } else if (columns[3].equals("[B")) {
+                bytes += Long.parseLong(columns[2]);
+            }
+        }
+        return new long[]{strings, bytes};
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.expenseapp.security;
+
+import com.example.expenseapp.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    @DisplayName("測試雜湊與比對 - 記錄延遲指標")
+    void testEncodeAndMatches() {
+        encoder = new BoundedPasswordEncoder(4, 1, 4, Duration.ofSeconds(5), meterRegistry);
+
+        String hash = encoder.encode("password123");
+
+        assertThat(encoder.matches("password123", hash)).isTrue();
+        assertThat(encoder.matches("wrong", hash)).isFalse();
+        assertThat(meterRegistry.get("password.hash.latency").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("password.hash.latency").tag("operation", "matches").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("測試佇列已滿 - 立即拒絕")
+    void testRejectWhenQueueFull() {
+        encoder = new BoundedPasswordEncoder(12, 1, 1, Duration.ofSeconds(30), meterRegistry);
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> encoder.encode("password123"), callers));
+        }
+        long rejected = futures.stream().filter(future -> {
+            try {
+                future.join();
+                return false;
+            } catch (CompletionException e) {
+                return e.getCause() instanceof TooManyRequestsException;
+            }
+        }).count();
+        callers.shutdown();
+
+        assertThat(rejected).isPositive();
+        assertThat(meterRegistry.get("password.hash.rejected").counter().count()).isEqualTo(rejected);
+    }
+
+    @Test
+    @DisplayName("測試自動挑選 cost - 落在設定範圍內")
+    void testCalibrateStrength() {
+        int strength = BoundedPasswordEncoder.calibrateStrength(Duration.ofMillis(50), 4, 8);
+
+        assertThat(strength).isBetween(4, 8);
+        encoder = new BoundedPasswordEncoder(strength, 1, 1, Duration.ofSeconds(5), meterRegistry);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.expenseapp.security;
+
+import com.example.expenseapp.model.User;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JwtServiceTest {
+
+    @TempDir
+    Path keyDir;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        user = new User("john_doe", "john@example.com", "password", "John Doe");
+        user.setId(42L);
+        user.setStatus(User.UserStatus.ACTIVE);
+        writeKeyPair("k1");
+        writeKeyPair("k2");
+    }
+
+    @Test
+    @DisplayName("測試 ES256 - 簽發與驗證")
+    void testEs256RoundTrip() {
+        JwtService jwtService = es256Service("k1", true, "k1");
+
+        String token = jwtService.generateToken(user);
+
+        assertThat(jwtService.extractUsername(token)).isEqualTo("john_doe");
+        assertThat(jwtService.parseRefreshToken(jwtService.generateRefreshToken(user)).getSubject()).isEqualTo("john_doe");
+    }
+
+    @Test
+    @DisplayName("測試 Access Token claims - 不查資料庫即可建立登入使用者")
+    void testTrustedClaims() {
+        JwtService jwtService = es256Service("k1", true, "k1");
+
+        AuthenticatedUser authenticatedUser =
+                jwtService.toAuthenticatedUser(jwtService.parseAccessToken(jwtService.generateToken(user)));
+
+        assertThat(authenticatedUser.getId()).isEqualTo(42L);
+        assertThat(authenticatedUser.getUsername()).isEqualTo("john_doe");
+        assertThat(authenticatedUser.getStatus()).isEqualTo("ACTIVE");
+        assertThat(authenticatedUser.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+        assertThatThrownBy(() -> jwtService.parseAccessToken(jwtService.generateRefreshToken(user)))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    @DisplayName("測試金鑰輪替 - 舊金鑰簽發的 Token 仍可驗證")
+    void testKeyRotation() {
+        JwtService oldSigner = es256Service("k1", true, "k1");
+        String oldToken = oldSigner.generateToken(user);
+
+        JwtService newSigner = es256Service("k2", true, "k2", "k1");
+
+        assertThat(newSigner.extractUsername(oldToken)).isEqualTo("john_doe");
+        assertThat(newSigner.extractUsername(newSigner.generateToken(user))).isEqualTo("john_doe");
+    }
+
+    @Test
+    @DisplayName("測試只驗證節點 - 沒有私鑰也能驗證但不能簽發")
+    void testVerifierOnly() {
+        String token = es256Service("k1", true, "k1").generateToken(user);
+
+        JwtService verifier = es256Service("k1", false, "k1");
+
+        assertThat(verifier.canSign()).isFalse();
+        assertThat(verifier.extractUsername(token)).isEqualTo("john_doe");
+        assertThatThrownBy(() -> verifier.generateToken(user)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("測試未知的 kid - 拒絕")
+    void testUnknownKeyId() {
+        String token = es256Service("k2", true, "k2").generateToken(user);
+
+        JwtService verifier = es256Service("k1", false, "k1");
+
+        assertThatThrownBy(() -> verifier.extractUsername(token)).isInstanceOf(JwtException.class);
+    }
+
+    private JwtService es256Service(String keyId, boolean withPrivateKey, String... publicKeyIds) {
+        StringBuilder publicKeys = new StringBuilder();
+        for (String id : publicKeyIds) {
+            if (!publicKeys.isEmpty()) {
+                publicKeys.append(',');
+            }
+            publicKeys.append(id).append("=file:").append(keyDir.resolve(id + ".pub.pem"));
+        }
+
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "algorithm", "ES256");
+        ReflectionTestUtils.setField(jwtService, "secret", "");
+        ReflectionTestUtils.setField(jwtService, "expiration", 900_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 1_209_600_000L);
+        ReflectionTestUtils.setField(jwtService, "keyId", keyId);
+        ReflectionTestUtils.setField(jwtService, "privateKeyLocation",
+                withPrivateKey ? "file:" + keyDir.resolve(keyId + ".key.pem") : "");
+        ReflectionTestUtils.setField(jwtService, "publicKeyLocations", publicKeys.toString());
+        jwtService.initKeys();
+        return jwtService;
+    }
+
+    private void writeKeyPair(String keyId) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+        Files.writeString(keyDir.resolve(keyId + ".key.pem"), pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+        Files.writeString(keyDir.resolve(keyId + ".pub.pem"), pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+    }
+
+    private String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.expenseapp.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenBucketRateLimiterTest {
+
+    @Test
+    @DisplayName("測試超過容量 - 拒絕並回傳等待時間")
+    void testRejectAfterCapacity() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 3, 100);
+
+        assertThat(limiter.tryAcquire("1.2.3.4")).isZero();
+        assertThat(limiter.tryAcquire("1.2.3.4")).isZero();
+        assertThat(limiter.tryAcquire("1.2.3.4")).isZero();
+        assertThat(limiter.tryAcquire("1.2.3.4")).isPositive();
+        // 不同來源不受影響
+        assertThat(limiter.tryAcquire("5.6.7.8")).isZero();
+    }
+
+    @Test
+    @DisplayName("測試超過追蹤上限 - 淘汰舊桶，每個新來源仍有自己的桶")
+    void testBoundedEntries() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 2, 10);
+
+        int allowed = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (limiter.tryAcquire("ip-" + i) == 0) {
+                allowed++;
+            }
+        }
+
+        assertThat(limiter.size()).isEqualTo(10);
+        assertThat(allowed).isEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("測試偽造來源灌滿後 - 新的正常來源不會被一起限流")
+    void testFloodDoesNotThrottleNewClients() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 2, 10);
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("spoofed-" + i);
+            limiter.tryAcquire("spoofed-" + i);
+            limiter.tryAcquire("spoofed-" + i);
+        }
+
+        assertThat(limiter.tryAcquire("legit-1")).isZero();
+        assertThat(limiter.tryAcquire("legit-2")).isZero();
+        assertThat(limiter.tryAcquire("legit-1")).isZero();
+        assertThat(limiter.tryAcquire("legit-1")).isPositive();
+        assertThat(limiter.size()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("測試並行請求 - 不會多發 token")
+    void testConcurrentAcquire() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, 1, 10);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> {
+                if (limiter.tryAcquire("user") == 0) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertThat(allowed.get()).isBetween(100, 101);
+    }
+
+    @Test
+    @DisplayName("測試閒置清除")
+    void testEvictIdle() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 60_000, 10);
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("b");
+        Thread.sleep(20);
+
+        assertThat(limiter.evictIdle(TimeUnit.MILLISECONDS.toNanos(5))).isEqualTo(2);
+        assertThat(limiter.size()).isZero();
+    }
+}
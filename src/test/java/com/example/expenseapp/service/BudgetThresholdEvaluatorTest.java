@@ -0,0 +1,42 @@
+package com.example.expenseapp.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BudgetThresholdEvaluatorTest {
+
+    private static final List<Integer> THRESHOLDS = List.of(80, 100);
+    private static final BigDecimal BUDGET = BigDecimal.valueOf(1000);
+
+    @Test
+    @DisplayName("測試跨過單一門檻")
+    void testCrossSingleThreshold() {
+        assertThat(BudgetThresholdEvaluator.highestCrossedThreshold(
+                BigDecimal.valueOf(700), BigDecimal.valueOf(800), BUDGET, THRESHOLDS)).isEqualTo(80);
+        assertThat(BudgetThresholdEvaluator.highestCrossedThreshold(
+                BigDecimal.valueOf(950), BigDecimal.valueOf(1200), BUDGET, THRESHOLDS)).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("測試一次跨過多個門檻 - 只回報最高的門檻")
+    void testCrossMultipleThresholds() {
+        assertThat(BudgetThresholdEvaluator.highestCrossedThreshold(
+                BigDecimal.valueOf(500), BigDecimal.valueOf(1000), BUDGET, THRESHOLDS)).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("測試未跨過門檻或已在門檻之上 - 不發出警示")
+    void testNoCrossing() {
+        assertThat(BudgetThresholdEvaluator.highestCrossedThreshold(
+                BigDecimal.valueOf(100), BigDecimal.valueOf(799.99), BUDGET, THRESHOLDS)).isZero();
+        assertThat(BudgetThresholdEvaluator.highestCrossedThreshold(
+                BigDecimal.valueOf(850), BigDecimal.valueOf(900), BUDGET, THRESHOLDS)).isZero();
+        assertThat(BudgetThresholdEvaluator.highestCrossedThreshold(
+                BigDecimal.valueOf(900), BigDecimal.valueOf(700), BUDGET, THRESHOLDS)).isZero();
+    }
+}
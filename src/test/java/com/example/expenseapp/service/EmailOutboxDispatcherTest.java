@@ -0,0 +1,251 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.config.DotenvTestConfig;
+import com.example.expenseapp.model.EmailOutbox;
+import com.example.expenseapp.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+// 排程間隔拉長，避免背景派送與測試手動派送搶同一批信件
+@SpringBootTest(properties = "app.email.outbox.poll-interval=3600000")
+@ContextConfiguration(initializers = DotenvTestConfig.class)
+public class EmailOutboxDispatcherTest {
+
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private JavaMailSender mailSender;
+
+    private String subject;
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        subject = "Outbox Test " + UUID.randomUUID();
+        Session session = Session.getInstance(new Properties());
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage(session));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAllById(createdIds);
+    }
+
+    @Test
+    @DisplayName("測試寫入 Outbox - 寄信請求只新增待寄送信件，不直接寄出")
+    void testQueueWritesOutbox() {
+        String recipient = "outbox" + System.currentTimeMillis() + "@example.com";
+
+        emailService.sendPasswordResetEmail(recipient, "Outbox User", "reset-token");
+
+        List<EmailOutbox> queued = outboxRepository.findAll().stream()
+                .filter(outbox -> outbox.getRecipient().equals(recipient))
+                .toList();
+        queued.forEach(outbox -> createdIds.add(outbox.getId()));
+
+        assertThat(queued).hasSize(1);
+        assertThat(queued.get(0).getStatus()).isEqualTo(EmailOutbox.OutboxStatus.PENDING);
+        assertThat(queued.get(0).getBody()).contains("reset-token");
+    }
+
+    @Test
+    @DisplayName("測試派送 - 寄出成功後標記為 SENT")
+    void testDispatchSuccess() {
+        doNothing().when(mailSender).send(any(MimeMessage[].class));
+        EmailOutbox outbox = queue("user@example.com");
+
+        dispatcher.dispatchPending();
+
+        EmailOutbox reloaded = outboxRepository.findById(outbox.getId()).orElseThrow();
+        assertThat(reloaded.getStatus()).isEqualTo(EmailOutbox.OutboxStatus.SENT);
+        assertThat(reloaded.getSentAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("測試派送失敗 - 保持 PENDING 並以退避時間排定重試")
+    void testDispatchFailureSchedulesRetry() {
+        doThrow(new MailSendException("SMTP down")).when(mailSender).send(any(MimeMessage[].class));
+        EmailOutbox outbox = queue("user@example.com");
+
+        dispatcher.dispatchPending();
+
+        EmailOutbox reloaded = outboxRepository.findById(outbox.getId()).orElseThrow();
+        assertThat(reloaded.getStatus()).isEqualTo(EmailOutbox.OutboxStatus.PENDING);
+        assertThat(reloaded.getAttempts()).isEqualTo(1);
+        assertThat(reloaded.getLastError()).contains("SMTP down");
+        assertThat(reloaded.getNextAttemptAt()).isAfter(LocalDateTime.now());
+    }
+
+    @Test
+    @DisplayName("測試派送失敗 - 達到重試上限後標記為 FAILED")
+    void testDispatchFailureExhaustsAttempts() {
+        doThrow(new MailSendException("SMTP down")).when(mailSender).send(any(MimeMessage[].class));
+        EmailOutbox outbox = new EmailOutbox("user@example.com", subject, "body");
+        outbox.setAttempts(7);
+        outbox = save(outbox);
+
+        dispatcher.dispatchPending();
+
+        EmailOutbox reloaded = outboxRepository.findById(outbox.getId()).orElseThrow();
+        assertThat(reloaded.getStatus()).isEqualTo(EmailOutbox.OutboxStatus.FAILED);
+        assertThat(reloaded.getAttempts()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("測試內容相同的信件 - 只有實際失敗的那一封重試")
+    void testIdenticalMessagesNotConflated() {
+        doAnswer(invocation -> {
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            for (Object argument : invocation.getArguments()) {
+                MimeMessage message = (MimeMessage) argument;
+                if (subject.equals(subjectOf(message))) {
+                    failed.put(message, new MessagingException("rejected"));
+                    break;
+                }
+            }
+            throw new MailSendException(failed);
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        EmailOutbox first = queue("same@example.com");
+        EmailOutbox second = queue("same@example.com");
+
+        dispatcher.dispatchPending();
+
+        assertThat(outboxRepository.findById(first.getId()).orElseThrow().getStatus())
+                .isEqualTo(EmailOutbox.OutboxStatus.PENDING);
+        assertThat(outboxRepository.findById(second.getId()).orElseThrow().getStatus())
+                .isEqualTo(EmailOutbox.OutboxStatus.SENT);
+    }
+
+    @Test
+    @DisplayName("測試認領租約到期 - 未回報結果的信件會被重新寄出")
+    void testExpiredLeaseIsReclaimed() {
+        doNothing().when(mailSender).send(any(MimeMessage[].class));
+        EmailOutbox outbox = new EmailOutbox("user@example.com", subject, "body");
+        outbox.markAsSending(LocalDateTime.now().minusMinutes(1), UUID.randomUUID().toString());
+        outbox = save(outbox);
+
+        dispatcher.dispatchPending();
+
+        assertThat(outboxRepository.findById(outbox.getId()).orElseThrow().getStatus())
+                .isEqualTo(EmailOutbox.OutboxStatus.SENT);
+    }
+
+    @Test
+    @DisplayName("測試認領租約未到期 - 寄送中的信件不會被重複取件")
+    void testActiveLeaseIsSkipped() {
+        EmailOutbox outbox = new EmailOutbox("user@example.com", subject, "body");
+        outbox.markAsSending(LocalDateTime.now().plusMinutes(5), UUID.randomUUID().toString());
+        outbox = save(outbox);
+
+        dispatcher.dispatchPending();
+
+        assertThat(outboxRepository.findById(outbox.getId()).orElseThrow().getStatus())
+                .isEqualTo(EmailOutbox.OutboxStatus.SENDING);
+    }
+
+    @Test
+    @DisplayName("測試認領租約到期 - 每次都沒有回報結果的信件達到重試上限後標記為 FAILED")
+    void testRepeatedlyAbandonedClaimStops() {
+        EmailOutbox outbox = new EmailOutbox("user@example.com", subject, "body");
+        outbox.setAttempts(7);
+        // 第 8 次認領後節點當機
+        outbox.markAsSending(LocalDateTime.now().minusMinutes(1), UUID.randomUUID().toString());
+        outbox = save(outbox);
+
+        dispatcher.dispatchPending();
+
+        EmailOutbox reloaded = outboxRepository.findById(outbox.getId()).orElseThrow();
+        assertThat(reloaded.getStatus()).isEqualTo(EmailOutbox.OutboxStatus.FAILED);
+        assertThat(reloaded.getAttempts()).isEqualTo(8);
+        assertThat(reloaded.getSentAt()).isNull();
+    }
+
+    @Test
+    @DisplayName("測試回報結果 - 寄送期間被其他節點重新認領時，不覆寫對方的狀態")
+    void testStaleResultIgnoredAfterReclaim() {
+        EmailOutbox outbox = queue("user@example.com");
+        String otherToken = UUID.randomUUID().toString();
+        Long id = outbox.getId();
+        // 寄送途中租約到期，被其他節點重新認領
+        doAnswer(invocation -> {
+            EmailOutbox current = outboxRepository.findById(id).orElseThrow();
+            current.markAsSending(LocalDateTime.now().plusMinutes(5), otherToken);
+            outboxRepository.save(current);
+            return null;
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        dispatcher.dispatchPending();
+
+        EmailOutbox reloaded = outboxRepository.findById(id).orElseThrow();
+        assertThat(reloaded.getStatus()).isEqualTo(EmailOutbox.OutboxStatus.SENDING);
+        assertThat(reloaded.getClaimToken()).isEqualTo(otherToken);
+    }
+
+    @Test
+    @DisplayName("測試待寄積壓指標 - 只計算已到期的 PENDING 信件")
+    void testDueGauge() {
+        double before = meterRegistry.get("mail.outbox.due").gauge().value();
+        queue("user@example.com");
+        EmailOutbox later = new EmailOutbox("user@example.com", subject, "body");
+        later.setNextAttemptAt(LocalDateTime.now().plusHours(1));
+        save(later);
+
+        assertThat(meterRegistry.get("mail.outbox.due").gauge().value() - before).isEqualTo(1);
+    }
+
+    private EmailOutbox queue(String recipient) {
+        return save(new EmailOutbox(recipient, subject, "body"));
+    }
+
+    private EmailOutbox save(EmailOutbox outbox) {
+        EmailOutbox saved = outboxRepository.save(outbox);
+        createdIds.add(saved.getId());
+        return saved;
+    }
+
+    private static String subjectOf(MimeMessage message) {
+        try {
+            return message.getSubject();
+        } catch (MessagingException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.config.DotenvTestConfig;
+import com.example.expenseapp.model.EmailOutbox;
+import com.example.expenseapp.repository.EmailOutboxRepository;
+import com.example.expenseapp.repository.SchedulerLockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 分段大小設小，讓少量資料也會跑過多段刪除；排程間隔拉長，避免背景派送動到測試資料
+@SpringBootTest(properties = {"app.email.outbox.purge.chunk-size=2", "app.email.outbox.poll-interval=3600000"})
+@ContextConfiguration(initializers = DotenvTestConfig.class)
+public class EmailOutboxPurgeJobTest {
+
+    private static final String LOCK_NAME = "email-outbox-purge";
+
+    @Autowired
+    private EmailOutboxPurgeJob purgeJob;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<EmailOutbox> oldSent = new ArrayList<>();
+    private EmailOutbox recentSent;
+    private EmailOutbox oldFailed;
+
+    @BeforeEach
+    void setUp() {
+        // 寄出超過保留期（預設 7 天）的信件
+        for (int i = 0; i < 5; i++) {
+            oldSent.add(save(EmailOutbox.OutboxStatus.SENT, LocalDateTime.now().minusDays(10).plusMinutes(i)));
+        }
+        recentSent = save(EmailOutbox.OutboxStatus.SENT, LocalDateTime.now().minusHours(1));
+        oldFailed = save(EmailOutbox.OutboxStatus.FAILED, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        schedulerLockRepository.deleteById(LOCK_NAME);
+        outboxRepository.deleteAllById(List.of(recentSent.getId(), oldFailed.getId()));
+        oldSent.forEach(outbox -> outboxRepository.findById(outbox.getId()).ifPresent(outboxRepository::delete));
+    }
+
+    @Test
+    @DisplayName("測試分段清除 - 刪除寄出超過保留期的信件，保留近期寄出與 FAILED 的信件")
+    void testPurgeSentInChunks() {
+        int purged = purgeJob.purgeSentEmails();
+
+        assertThat(purged).isGreaterThanOrEqualTo(oldSent.size());
+        for (EmailOutbox outbox : oldSent) {
+            assertThat(outboxRepository.findById(outbox.getId())).isEmpty();
+        }
+        assertThat(outboxRepository.findById(recentSent.getId())).isPresent();
+        assertThat(outboxRepository.findById(oldFailed.getId())).isPresent();
+    }
+
+    @Test
+    @DisplayName("測試租約被其他節點持有 - 跳過清除並回傳 -1")
+    void testPurgeSkippedWhenLeaseHeld() {
+        LocalDateTime now = LocalDateTime.now();
+        schedulerLockRepository.deleteById(LOCK_NAME);
+        transactionTemplate.executeWithoutResult(status ->
+                schedulerLockRepository.insertIfAbsent(LOCK_NAME, now.plusMinutes(10), now, "other-node"));
+
+        assertThat(purgeJob.purgeSentEmails()).isEqualTo(-1);
+        for (EmailOutbox outbox : oldSent) {
+            assertThat(outboxRepository.findById(outbox.getId())).isPresent();
+        }
+    }
+
+    private EmailOutbox save(EmailOutbox.OutboxStatus status, LocalDateTime sentAt) {
+        EmailOutbox outbox = new EmailOutbox("purge@example.com", "Purge Test", "body");
+        outbox.setStatus(status);
+        outbox.setSentAt(sentAt);
+        return outboxRepository.save(outbox);
+    }
+}
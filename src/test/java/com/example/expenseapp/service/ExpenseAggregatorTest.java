@@ -0,0 +1,125 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.model.Expense;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpenseAggregatorTest {
+
+    private static final String[] CATEGORIES = {"餐飲", "交通", "娛樂", "教育", "購物", "醫療", "居住", "其他"};
+
+    private final ExpenseAggregator aggregator = new ExpenseAggregator(10_000, 4);
+
+    @AfterEach
+    void tearDown() {
+        aggregator.shutdown();
+    }
+
+    @Test
+    @DisplayName("測試平行彙總結果與單執行緒一致")
+    void testParallelMatchesSequential() {
+        List<Expense> expenses = generateExpenses(200_000);
+        assertThat(aggregator.isParallel(expenses.size())).isTrue();
+
+        ExpenseAggregator.Accumulator parallel = aggregator.aggregate(expenses);
+        ExpenseAggregator.Accumulator sequential = aggregator.aggregateSequential(expenses);
+
+        assertThat(parallel.getCount()).isEqualTo(200_000);
+        assertThat(parallel.getTotalAmount()).isEqualByComparingTo(sequential.getTotalAmount());
+        assertThat(parallel.getMaxAmount()).isEqualByComparingTo(sequential.getMaxAmount());
+        assertThat(parallel.getMinAmount()).isEqualByComparingTo(sequential.getMinAmount());
+        assertThat(parallel.getCategories()).hasSameSizeAs(sequential.getCategories());
+        sequential.getCategories().forEach((category, total) -> {
+            assertThat(parallel.getCategories().get(category).getAmount()).isEqualByComparingTo(total.getAmount());
+            assertThat(parallel.getCategories().get(category).getCount()).isEqualTo(total.getCount());
+        });
+    }
+
+    @Test
+    @DisplayName("測試未達門檻時使用單執行緒彙總")
+    void testBelowThresholdIsSequential() {
+        List<Expense> expenses = generateExpenses(500);
+        assertThat(aggregator.isParallel(expenses.size())).isFalse();
+
+        ExpenseAggregator.Accumulator result = aggregator.aggregate(expenses);
+        assertThat(result.getCount()).isEqualTo(500);
+    }
+
+    @Test
+    @DisplayName("測試空清單彙總")
+    void testEmptyList() {
+        ExpenseAggregator.Accumulator result = aggregator.aggregate(new ArrayList<>());
+
+        assertThat(result.getCount()).isZero();
+        assertThat(result.getTotalAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(result.getMaxAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(result.getCategories()).isEmpty();
+    }
+
+    /**
+     * 損益平衡基準測試：mvn test -Dtest=ExpenseAggregatorTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("基準測試：單執行緒 vs 平行彙總")
+    void benchmarkBreakEven() {
+        int[] sizes = {1_000, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000};
+        ExpenseAggregator forced = new ExpenseAggregator(0, aggregator.getParallelism());
+        try {
+            System.out.printf("parallelism=%d%n", forced.getParallelism());
+            System.out.printf("%10s %14s %14s %8s%n", "rows", "sequential(us)", "parallel(us)", "speedup");
+            for (int size : sizes) {
+                List<Expense> expenses = generateExpenses(size);
+                long sequential = measure(() -> forced.aggregateSequential(expenses));
+                long parallel = measure(() -> forced.aggregate(expenses));
+                System.out.printf("%10d %14d %14d %8.2f%n",
+                        size, sequential / 1000, parallel / 1000, (double) sequential / parallel);
+            }
+        } finally {
+            forced.shutdown();
+        }
+    }
+
+    private long measure(Runnable runnable) {
+        // 暖機讓 JIT 完成編譯
+        for (int i = 0; i < 10; i++) {
+            runnable.run();
+        }
+        int iterations = 20;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            runnable.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private List<Expense> generateExpenses(int size) {
+        Random random = new Random(42);
+        List<Expense> expenses = new ArrayList<>(size);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < size; i++) {
+            int category = random.nextInt(CATEGORIES.length);
+            Expense expense = new Expense(
+                    "支出" + i,
+                    BigDecimal.valueOf(random.nextInt(1_000_000) + 1, 2),
+                    CATEGORIES[category],
+                    start.plusDays(random.nextInt(5 * 365))
+            );
+            expense.setCategoryId(category + 1);
+            expenses.add(expense);
+        }
+        return expenses;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.config.DotenvTestConfig;
+import com.example.expenseapp.model.User;
+import com.example.expenseapp.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 排程間隔拉長，由測試自行觸發寫回
+@SpringBootTest(properties = "app.auth.last-login.flush-interval=3600000")
+@ContextConfiguration(initializers = DotenvTestConfig.class)
+public class LastLoginTrackerTest {
+
+    @Autowired
+    private LastLoginTracker lastLoginTracker;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User firstUser;
+    private User secondUser;
+
+    @BeforeEach
+    void setUp() {
+        firstUser = saveUser("loginfirst");
+        secondUser = saveUser("loginsecond");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (!lastLoginTracker.isRunning()) {
+            lastLoginTracker.start();
+        }
+        userRepository.deleteById(firstUser.getId());
+        userRepository.deleteById(secondUser.getId());
+    }
+
+    @Test
+    @DisplayName("測試合併寫回 - 同一使用者多次登入只寫入最新時間")
+    void testCoalescedFlush() {
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        lastLoginTracker.recordLogin(firstUser.getId(), base.minusMinutes(2));
+        lastLoginTracker.recordLogin(firstUser.getId(), base);
+        lastLoginTracker.recordLogin(firstUser.getId(), base.minusMinutes(1));
+        lastLoginTracker.recordLogin(secondUser.getId(), base.minusMinutes(3));
+
+        // 寫回前資料庫尚未更新
+        assertThat(userRepository.findById(firstUser.getId()).orElseThrow().getLastLoginAt()).isNull();
+
+        lastLoginTracker.flush();
+
+        assertThat(userRepository.findById(firstUser.getId()).orElseThrow().getLastLoginAt()).isEqualTo(base);
+        assertThat(userRepository.findById(secondUser.getId()).orElseThrow().getLastLoginAt()).isEqualTo(base.minusMinutes(3));
+    }
+
+    @Test
+    @DisplayName("測試合併寫回 - 較舊的時間不會蓋掉資料庫中較新的值")
+    void testFlushKeepsNewerValue() {
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        lastLoginTracker.recordLogin(firstUser.getId(), base);
+        lastLoginTracker.flush();
+
+        lastLoginTracker.recordLogin(firstUser.getId(), base.minusHours(1));
+        lastLoginTracker.flush();
+
+        assertThat(userRepository.findById(firstUser.getId()).orElseThrow().getLastLoginAt()).isEqualTo(base);
+    }
+
+    @Test
+    @DisplayName("測試關閉時寫回 - stop 會寫回緩衝內容，之後的登入直接寫入")
+    void testFlushOnStop() {
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        lastLoginTracker.recordLogin(firstUser.getId(), base);
+
+        lastLoginTracker.stop();
+
+        assertThat(lastLoginTracker.isRunning()).isFalse();
+        assertThat(userRepository.findById(firstUser.getId()).orElseThrow().getLastLoginAt()).isEqualTo(base);
+
+        // 關閉流程中仍在處理的登入
+        lastLoginTracker.recordLogin(secondUser.getId(), base);
+        assertThat(userRepository.findById(secondUser.getId()).orElseThrow().getLastLoginAt()).isEqualTo(base);
+    }
+
+    @Test
+    @DisplayName("測試寫回失敗 - 關閉後資料庫無法連線時放回緩衝，不會遞迴呼叫寫回")
+    void testFailedFlushAfterStopRequeues() {
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        lastLoginTracker.stop();
+
+        JdbcTemplate failing = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public int update(String sql, Object... args) {
+                throw new DataAccessResourceFailureException("database down");
+            }
+        };
+        ReflectionTestUtils.setField(lastLoginTracker, "jdbcTemplate", failing);
+        try {
+            lastLoginTracker.recordLogin(firstUser.getId(), base.minusMinutes(1));
+            lastLoginTracker.recordLogin(firstUser.getId(), base);
+            assertThat(lastLoginTracker.getPendingCount()).isEqualTo(1);
+        } finally {
+            ReflectionTestUtils.setField(lastLoginTracker, "jdbcTemplate", jdbcTemplate);
+        }
+
+        lastLoginTracker.flush();
+
+        assertThat(lastLoginTracker.getPendingCount()).isZero();
+        assertThat(userRepository.findById(firstUser.getId()).orElseThrow().getLastLoginAt()).isEqualTo(base);
+    }
+
+    @Test
+    @DisplayName("測試實體儲存 - 儲存使用者不會覆蓋已寫回的最後登入時間")
+    void testEntitySaveKeepsLastLogin() {
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        // 先載入實體（此時尚無最後登入時間），再由追蹤器寫回
+        User stale = userRepository.findById(firstUser.getId()).orElseThrow();
+        lastLoginTracker.recordLogin(firstUser.getId(), base);
+        lastLoginTracker.flush();
+
+        stale.setName("Renamed User");
+        userRepository.save(stale);
+
+        User reloaded = userRepository.findById(firstUser.getId()).orElseThrow();
+        assertThat(reloaded.getName()).isEqualTo("Renamed User");
+        assertThat(reloaded.getLastLoginAt()).isEqualTo(base);
+    }
+
+    @Test
+    @DisplayName("測試停止順序 - 比 Web 伺服器更晚停止")
+    void testStopsAfterWebServer() {
+        // WebServerStartStopLifecycle 的 phase
+        assertThat(lastLoginTracker.getPhase()).isLessThan(SmartLifecycle.DEFAULT_PHASE - 2048);
+    }
+
+    private User saveUser(String prefix) {
+        User user = new User();
+        user.setUsername(prefix + System.nanoTime());
+        user.setEmail(prefix + System.nanoTime() + "@example.com");
+        user.setName("Last Login Test User");
+        user.setPassword("password");
+        user.setStatus(User.UserStatus.ACTIVE);
+        return userRepository.save(user);
+    }
+}
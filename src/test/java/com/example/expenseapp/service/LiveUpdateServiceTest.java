@@ -0,0 +1,83 @@
+package com.example.expenseapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LiveUpdateServiceTest {
+
+    private LiveUpdateService liveUpdateService;
+
+    @BeforeEach
+    void setUp() {
+        liveUpdateService = new LiveUpdateService(new SimpleMeterRegistry(), 2);
+        ReflectionTestUtils.setField(liveUpdateService, "emitterTimeout", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(liveUpdateService, "maxConnectionsPerUser", 2);
+        ReflectionTestUtils.setField(liveUpdateService, "maxPendingEvents", 32);
+    }
+
+    @AfterEach
+    void tearDown() {
+        liveUpdateService.shutdown();
+    }
+
+    @Test
+    @DisplayName("測試每位使用者的連線上限 - 超過時關閉最舊的連線")
+    void testConnectionCapPerUser() {
+        liveUpdateService.subscribe("alice");
+        liveUpdateService.subscribe("alice");
+        liveUpdateService.subscribe("alice");
+        liveUpdateService.subscribe("bob");
+
+        assertThat(liveUpdateService.getSubscriberCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("測試非當月或無訂閱者的異動 - 不觸發推播")
+    void testIgnoreIrrelevantChanges() {
+        liveUpdateService.subscribe("alice");
+
+        // 未注入 BudgetService / StatisticsService，若觸發推播會記錄錯誤而非推送
+        liveUpdateService.onExpenseChanged(new ExpenseChangedEvent("alice", Set.of(LocalDate.now().minusYears(1))));
+        liveUpdateService.onExpenseChanged(new ExpenseChangedEvent("bob", Set.of(LocalDate.now())));
+        liveUpdateService.heartbeat();
+
+        assertThat(liveUpdateService.getSubscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("測試同一使用者的多次異動 - 尚未開始計算前合併為一次推播")
+    void testPushesAreCoalesced() throws Exception {
+        ThreadPoolExecutor pushExecutor = (ThreadPoolExecutor) ReflectionTestUtils.getField(liveUpdateService, "pushExecutor");
+        CountDownLatch release = new CountDownLatch(1);
+        // 先佔住所有推播執行緒，讓之後的推播停在佇列中
+        for (int i = 0; i < pushExecutor.getMaximumPoolSize(); i++) {
+            pushExecutor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        liveUpdateService.subscribe("alice");
+
+        for (int i = 0; i < 10; i++) {
+            liveUpdateService.onExpenseChanged(new ExpenseChangedEvent("alice", Set.of(LocalDate.now())));
+        }
+
+        assertThat(pushExecutor.getQueue()).hasSize(1);
+        release.countDown();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.expenseapp.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PooledMailSenderTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private SimpleMeterRegistry meterRegistry;
+    private PooledMailSender pooledMailSender;
+
+    @BeforeEach
+    void setUp() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+
+        meterRegistry = new SimpleMeterRegistry();
+        pooledMailSender = new PooledMailSender(mailSender, 2, 60_000, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pooledMailSender.shutdown();
+    }
+
+    @Test
+    @DisplayName("測試批次寄信 - 全部寄達且連線數不超過連線池大小")
+    void testSendBatch() throws Exception {
+        Map<Integer, Exception> failures = pooledMailSender.send(buildMessages(20));
+
+        assertThat(failures).isEmpty();
+        assertThat(greenMail.getReceivedMessages()).hasSize(20);
+        assertThat(meterRegistry.get("mail.send.connections.opened").counter().count()).isLessThanOrEqualTo(2);
+        assertThat(meterRegistry.get("mail.send.sent").counter().count()).isEqualTo(20);
+        assertThat(meterRegistry.get("mail.send.latency").timer().count()).isEqualTo(20);
+        assertThat(pooledMailSender.getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("測試連續批次 - 重複使用已建立的連線")
+    void testReuseConnections() {
+        pooledMailSender.send(buildMessages(4));
+        pooledMailSender.send(buildMessages(4));
+        pooledMailSender.send(buildMessages(4));
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(12);
+        assertThat(meterRegistry.get("mail.send.connections.opened").counter().count()).isLessThanOrEqualTo(2);
+        assertThat(pooledMailSender.getOpenConnections()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("測試中文主旨與內容")
+    void testChineseContent() throws Exception {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("noreply@expenseapp.com");
+        message.setTo("user@example.com");
+        message.setSubject("重設您的 Expense App 密碼");
+        message.setText("親愛的使用者，請點擊以下連結重設密碼");
+
+        Map<Integer, Exception> failures = pooledMailSender.send(List.of(message));
+
+        assertThat(failures).isEmpty();
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        assertThat(received.getSubject()).isEqualTo("重設您的 Expense App 密碼");
+        assertThat(received.getContent().toString()).contains("請點擊以下連結重設密碼");
+    }
+
+    @Test
+    @DisplayName("測試 SMTP 無法連線 - 回報整批失敗")
+    void testConnectionFailure() {
+        greenMail.stop();
+
+        List<SimpleMailMessage> messages = buildMessages(5);
+        Map<Integer, Exception> failures = pooledMailSender.send(messages);
+
+        assertThat(failures).hasSize(5);
+        assertThat(meterRegistry.get("mail.send.failed").counter().count()).isEqualTo(5);
+        assertThat(pooledMailSender.getInFlight()).isZero();
+    }
+
+    private List<SimpleMailMessage> buildMessages(int count) {
+        List<SimpleMailMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom("noreply@expenseapp.com");
+            message.setTo("user" + i + "@example.com");
+            message.setSubject("Test " + i);
+            message.setText("Body " + i);
+            messages.add(message);
+        }
+        return messages;
+    }
+}
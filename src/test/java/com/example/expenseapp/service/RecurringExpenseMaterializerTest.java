@@ -0,0 +1,102 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.config.DotenvTestConfig;
+import com.example.expenseapp.model.Expense;
+import com.example.expenseapp.model.RecurringExpense;
+import com.example.expenseapp.model.User;
+import com.example.expenseapp.repository.ExpenseRepository;
+import com.example.expenseapp.repository.RecurringExpenseRepository;
+import com.example.expenseapp.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ContextConfiguration(initializers = DotenvTestConfig.class)
+public class RecurringExpenseMaterializerTest {
+
+    @Autowired
+    private RecurringExpenseMaterializer materializer;
+
+    @Autowired
+    private RecurringExpenseRepository recurringExpenseRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setUsername("recurringtestuser" + System.currentTimeMillis());
+        testUser.setEmail("recurringtest" + System.currentTimeMillis() + "@example.com");
+        testUser.setName("Recurring Test User");
+        testUser.setPassword("password");
+        testUser.setStatus(User.UserStatus.ACTIVE);
+        testUser = userRepository.save(testUser);
+
+        LocalDate startDate = LocalDate.of(2025, 1, 1);
+        recurringExpenseRepository.save(new RecurringExpense(testUser, "房租", BigDecimal.valueOf(15000), "居住", 5, startDate));
+        recurringExpenseRepository.save(new RecurringExpense(testUser, "月底訂閱", BigDecimal.valueOf(390), "娛樂", 31, startDate));
+    }
+
+    @AfterEach
+    void tearDown() {
+        expenseRepository.deleteAll(expenseRepository.findByUser(testUser));
+        recurringExpenseRepository.deleteAll(recurringExpenseRepository.findByUserOrderByDayOfMonthAscIdAsc(testUser));
+        userRepository.deleteById(testUser.getId());
+    }
+
+    @Test
+    @DisplayName("測試產生固定支出 - 只產生扣款日已到的範本，重複執行不會重複產生")
+    void testMaterializeIdempotent() {
+        materializer.materialize(LocalDate.of(2025, 9, 15));
+        materializer.materialize(LocalDate.of(2025, 9, 15));
+
+        List<Expense> expenses = expenseRepository.findByUser(testUser);
+        assertThat(expenses).hasSize(1);
+        assertThat(expenses.get(0).getTitle()).isEqualTo("房租");
+        assertThat(expenses.get(0).getExpenseDate()).isEqualTo(LocalDate.of(2025, 9, 5));
+    }
+
+    @Test
+    @DisplayName("測試產生固定支出 - 扣款日大於當月天數時於月底產生")
+    void testMaterializeAtEndOfMonth() {
+        materializer.materialize(LocalDate.of(2025, 9, 30));
+
+        List<Expense> expenses = expenseRepository.findByUser(testUser);
+        assertThat(expenses).extracting(Expense::getExpenseDate)
+                .containsExactlyInAnyOrder(LocalDate.of(2025, 9, 5), LocalDate.of(2025, 9, 30));
+    }
+
+    @Test
+    @DisplayName("測試產生固定支出 - 排程停擺漏掉的月份會補產生")
+    void testMaterializeCatchesUpMissedMonths() {
+        materializer.materialize(LocalDate.of(2025, 7, 31));
+        // 8 月整個月沒有執行，9 月 3 日時房租（5 日）與訂閱（31 日）本月都還沒到期
+        materializer.materialize(LocalDate.of(2025, 9, 3));
+
+        List<Expense> expenses = expenseRepository.findByUser(testUser);
+        assertThat(expenses).extracting(Expense::getExpenseDate)
+                .containsExactlyInAnyOrder(
+                        LocalDate.of(2025, 7, 5), LocalDate.of(2025, 7, 31),
+                        LocalDate.of(2025, 8, 5), LocalDate.of(2025, 8, 31));
+
+        materializer.materialize(LocalDate.of(2025, 9, 5));
+        assertThat(expenseRepository.findByUser(testUser)).hasSize(5);
+    }
+}
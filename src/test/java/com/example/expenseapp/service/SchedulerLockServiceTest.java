@@ -0,0 +1,121 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.config.DotenvTestConfig;
+import com.example.expenseapp.model.SchedulerLock;
+import com.example.expenseapp.repository.SchedulerLockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ContextConfiguration(initializers = DotenvTestConfig.class)
+public class SchedulerLockServiceTest {
+
+    private static final String OTHER_NODE = "other-node";
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String lockName;
+
+    @BeforeEach
+    void setUp() {
+        lockName = "test-lock-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        schedulerLockRepository.deleteById(lockName);
+    }
+
+    @Test
+    @DisplayName("測試取得租約 - 第一次使用時建立租約")
+    void testAcquireCreatesLease() {
+        assertThat(schedulerLockService.tryAcquire(lockName, Duration.ofMinutes(5))).isTrue();
+
+        SchedulerLock lock = schedulerLockRepository.findById(lockName).orElseThrow();
+        assertThat(lock.getLockedBy()).isEqualTo(schedulerLockService.getOwner());
+        assertThat(lock.getLockedUntil()).isAfter(LocalDateTime.now().plusMinutes(4));
+    }
+
+    @Test
+    @DisplayName("測試租約競爭 - 租約未到期時其他節點無法取得")
+    void testAcquireContention() {
+        assertThat(schedulerLockService.tryAcquire(lockName, Duration.ofMinutes(5))).isTrue();
+
+        assertThat(schedulerLockService.tryAcquire(lockName, Duration.ofMinutes(5))).isFalse();
+        assertThat(acquireAsOtherNode()).isFalse();
+    }
+
+    @Test
+    @DisplayName("測試租約到期 - 持有節點當機後其他節點可接手")
+    void testAcquireAfterExpiry() {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status ->
+                schedulerLockRepository.insertIfAbsent(lockName, now.minusSeconds(1), now.minusMinutes(10), OTHER_NODE));
+
+        assertThat(schedulerLockService.tryAcquire(lockName, Duration.ofMinutes(5))).isTrue();
+        assertThat(schedulerLockRepository.findById(lockName).orElseThrow().getLockedBy())
+                .isEqualTo(schedulerLockService.getOwner());
+    }
+
+    @Test
+    @DisplayName("測試釋放租約 - 釋放後其他節點可立即取得")
+    void testRelease() {
+        assertThat(schedulerLockService.tryAcquire(lockName, Duration.ofMinutes(5))).isTrue();
+
+        schedulerLockService.release(lockName);
+
+        assertThat(acquireAsOtherNode()).isTrue();
+    }
+
+    @Test
+    @DisplayName("測試釋放租約 - 不會釋放其他節點持有的租約")
+    void testReleaseIgnoresOtherOwner() {
+        assertThat(acquireAsOtherNode()).isTrue();
+
+        schedulerLockService.release(lockName);
+
+        assertThat(schedulerLockService.tryAcquire(lockName, Duration.ofMinutes(5))).isFalse();
+    }
+
+    @Test
+    @DisplayName("測試延長租約 - 只有仍持有租約的節點可以延長")
+    void testRenew() {
+        assertThat(schedulerLockService.tryAcquire(lockName, Duration.ofSeconds(30))).isTrue();
+
+        assertThat(schedulerLockService.renew(lockName, Duration.ofMinutes(10))).isTrue();
+        assertThat(schedulerLockRepository.findById(lockName).orElseThrow().getLockedUntil())
+                .isAfter(LocalDateTime.now().plusMinutes(9));
+
+        schedulerLockService.release(lockName);
+        assertThat(acquireAsOtherNode()).isTrue();
+        assertThat(schedulerLockService.renew(lockName, Duration.ofMinutes(10))).isFalse();
+    }
+
+    private boolean acquireAsOtherNode() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = transactionTemplate.execute(status -> {
+            int inserted = schedulerLockRepository.insertIfAbsent(lockName, now.plusMinutes(5), now, OTHER_NODE);
+            return inserted == 1 ? 1 : schedulerLockRepository.acquireIfExpired(lockName, now.plusMinutes(5), now, OTHER_NODE);
+        });
+        return updated != null && updated == 1;
+    }
+}
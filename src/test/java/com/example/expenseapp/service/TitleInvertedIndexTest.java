@@ -0,0 +1,107 @@
+package com.example.expenseapp.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TitleInvertedIndexTest {
+
+    @Test
+    @DisplayName("測試中文切 bigram、英數字分段並正規化")
+    void testTokenize() {
+        assertThat(TitleInvertedIndex.tokenize(TitleInvertedIndex.normalize("星巴克咖啡")))
+                .containsExactly("星巴", "巴克", "克咖", "咖啡");
+        assertThat(TitleInvertedIndex.tokenize(TitleInvertedIndex.normalize("ＳＴＡＲＢＵＣＫＳ 拿鐵")))
+                .containsExactly("st", "ta", "ar", "rb", "bu", "uc", "ck", "ks", "拿鐵");
+        // 中文與英數字之間不產生跨段 token，單字元段落不產生 token
+        assertThat(TitleInvertedIndex.tokenize(TitleInvertedIndex.normalize("7-11咖啡")))
+                .containsExactly("11", "咖啡");
+        assertThat(TitleInvertedIndex.tokenize("")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("測試搜尋結果等同子字串比對並依日期排序")
+    void testSearch() {
+        TitleInvertedIndex index = new TitleInvertedIndex();
+        LocalDate today = LocalDate.of(2025, 10, 15);
+        index.put(1L, "星巴克拿鐵", today.minusDays(2));
+        index.put(2L, "Starbucks 美式", today);
+        index.put(3L, "巴克斯特午餐", today.minusDays(1));
+        index.put(4L, "7-11咖啡", today.minusDays(3));
+
+        assertThat(index.search("星巴克", 10)).containsExactly(1L);
+        assertThat(index.search("巴克", 10)).containsExactly(3L, 1L);
+        assertThat(index.search("STARBUCKS", 10)).containsExactly(2L);
+        assertThat(index.search("11咖", 10)).containsExactly(4L);
+        // 單一中文字沒有 bigram，退回逐筆比對
+        assertThat(index.search("咖", 10)).containsExactly(4L);
+        assertThat(index.search("巴克", 1)).containsExactly(3L);
+        assertThat(index.search("麥當勞", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("測試更新與刪除後索引同步")
+    void testUpdateAndRemove() {
+        TitleInvertedIndex index = new TitleInvertedIndex();
+        index.put(1L, "星巴克", LocalDate.of(2025, 10, 1));
+
+        index.put(1L, "路易莎", LocalDate.of(2025, 10, 1));
+        assertThat(index.search("星巴克", 10)).isEmpty();
+        assertThat(index.search("路易莎", 10)).containsExactly(1L);
+
+        index.remove(1L);
+        assertThat(index.search("路易莎", 10)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    /**
+     * 索引與逐筆子字串比對的比較：mvn test -Dtest=TitleInvertedIndexTest -Dbenchmark=true
+     * 逐筆比對相當於 LIKE '%x%' 在資料已全部載入記憶體時的下限，實際資料庫掃描還要加上 I/O
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("基準測試：倒排索引 vs 逐筆子字串比對")
+    void benchmarkSearch() {
+        String[] words = {"午餐", "晚餐", "捷運", "咖啡", "房租", "超市", "電影", "計程車", "早餐", "書店", "加油", "停車"};
+        Random random = new Random(42);
+        TitleInvertedIndex index = new TitleInvertedIndex();
+        List<String> titles = new ArrayList<>();
+        for (long i = 0; i < 200_000; i++) {
+            String title = words[random.nextInt(words.length)] + words[random.nextInt(words.length)] + i;
+            titles.add(TitleInvertedIndex.normalize(title));
+            index.put(i, title, LocalDate.of(2025, 1, 1).plusDays(i % 365));
+        }
+        index.put(200_000L, "星巴克拿鐵", LocalDate.of(2025, 6, 1));
+        titles.add("星巴克拿鐵");
+
+        int rounds = 1_000;
+        long indexed = 0;
+        long scanned = 0;
+        // 第一輪暖機，第二輪計時
+        for (int pass = 0; pass < 2; pass++) {
+            long found = 0;
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                found += index.search("星巴克", 50).size();
+            }
+            indexed = (System.nanoTime() - start) / rounds;
+
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                found += titles.stream().filter(title -> title.contains("星巴克")).count();
+            }
+            scanned = (System.nanoTime() - start) / rounds;
+            assertThat(found).isEqualTo(2L * rounds);
+        }
+
+        System.out.printf("rows=%d index=%.1fus scan=%.1fus speedup=%.0fx%n",
+                titles.size(), indexed / 1000.0, scanned / 1000.0, (double) scanned / Math.max(indexed, 1));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.expenseapp.service;
+
+import com.example.expenseapp.config.DotenvTestConfig;
+import com.example.expenseapp.model.User;
+import com.example.expenseapp.model.VerificationToken;
+import com.example.expenseapp.repository.SchedulerLockRepository;
+import com.example.expenseapp.repository.UserRepository;
+import com.example.expenseapp.repository.VerificationTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 分段大小設小，讓少量資料也會跑過多段刪除
+@SpringBootTest(properties = "app.token.purge.chunk-size=2")
+@ContextConfiguration(initializers = DotenvTestConfig.class)
+public class VerificationTokenPurgeJobTest {
+
+    private static final String LOCK_NAME = "verification-token-purge";
+
+    @Autowired
+    private VerificationTokenPurgeJob purgeJob;
+
+    @Autowired
+    private VerificationTokenRepository tokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User testUser;
+    private final List<VerificationToken> expiredTokens = new ArrayList<>();
+    private VerificationToken freshToken;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setUsername("purgetestuser" + System.currentTimeMillis());
+        testUser.setEmail("purgetest" + System.currentTimeMillis() + "@example.com");
+        testUser.setName("Purge Test User");
+        testUser.setPassword("password");
+        testUser = userRepository.save(testUser);
+
+        // 超過保留期（預設 1 天）的過期 Token
+        for (int i = 0; i < 5; i++) {
+            expiredTokens.add(tokenRepository.save(new VerificationToken(testUser, UUID.randomUUID().toString(),
+                    VerificationToken.TokenType.EMAIL_VERIFICATION, LocalDateTime.now().minusDays(3).plusMinutes(i))));
+        }
+        freshToken = tokenRepository.save(new VerificationToken(testUser, UUID.randomUUID().toString(),
+                VerificationToken.TokenType.PASSWORD_RESET, LocalDateTime.now().plusHours(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        schedulerLockRepository.deleteById(LOCK_NAME);
+        transactionTemplate.executeWithoutResult(status -> tokenRepository.deleteByUser(testUser));
+        userRepository.deleteById(testUser.getId());
+    }
+
+    @Test
+    @DisplayName("測試分段清除 - 刪除所有過期 Token、保留未過期 Token 並回報筆數")
+    void testPurgeInChunks() {
+        double purgedBefore = meterRegistry.get("verification_tokens.purged").counter().count();
+
+        int purged = purgeJob.purgeExpiredTokens();
+
+        assertThat(purged).isGreaterThanOrEqualTo(expiredTokens.size());
+        for (VerificationToken token : expiredTokens) {
+            assertThat(tokenRepository.findById(token.getId())).isEmpty();
+        }
+        assertThat(tokenRepository.findById(freshToken.getId())).isPresent();
+        assertThat(meterRegistry.get("verification_tokens.purged").counter().count() - purgedBefore)
+                .isEqualTo(purged);
+
+        // 執行完畢後釋放租約，下一次排程可以立即取得
+        assertThat(schedulerLockRepository.findById(LOCK_NAME).orElseThrow().getLockedUntil())
+                .isBeforeOrEqualTo(LocalDateTime.now());
+    }
+
+    @Test
+    @DisplayName("測試租約被其他節點持有 - 跳過清除並回傳 -1")
+    void testPurgeSkippedWhenLeaseHeld() {
+        LocalDateTime now = LocalDateTime.now();
+        schedulerLockRepository.deleteById(LOCK_NAME);
+        transactionTemplate.executeWithoutResult(status ->
+                schedulerLockRepository.insertIfAbsent(LOCK_NAME, now.plusMinutes(10), now, "other-node"));
+
+        assertThat(purgeJob.purgeExpiredTokens()).isEqualTo(-1);
+        for (VerificationToken token : expiredTokens) {
+            assertThat(tokenRepository.findById(token.getId())).isPresent();
+        }
+    }
+}